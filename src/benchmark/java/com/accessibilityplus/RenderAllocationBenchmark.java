@@ -0,0 +1,247 @@
+package com.accessibilityplus;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.api.Actor;
+import net.runelite.api.Client;
+import net.runelite.api.NPC;
+import net.runelite.api.Player;
+import net.runelite.api.Point;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.widgets.Widget;
+
+/**
+ * Bytes allocated per steady-state frame by the dialog and minimap overlays.
+ * Run with ./gradlew benchmark -Pbenchmark=RenderAllocationBenchmark; it is not part of the
+ * test suite.
+ *
+ * Needs a JVM whose ThreadMXBean reports per-thread allocation (HotSpot does), and a long
+ * warm-up: interpreted and partly compiled frames allocate on their own. Fails if the
+ * dialog overlay allocates at all, or if the minimap allocates more per entity than the
+ * Point Perspective.localToMinimap returns for it.
+ *
+ * Java2D's software loops allocate for each fill and draw on their own, how much depending
+ * on the image type and hints (kilobytes per call for translucent colors without
+ * antialiasing). That share is measured with the same calls made directly and subtracted,
+ * so only the overlay's own allocations are held to the limit.
+ */
+public class RenderAllocationBenchmark
+{
+    private static final int WARMUP_FRAMES = 20_000;
+    private static final int FRAMES = 1_000;
+
+    // Players and NPCs each, all within minimap range.
+    private static final int ENTITIES = 40;
+
+    // Room for the projected Point of each shape (24 bytes on a 64-bit HotSpot), and for nothing else.
+    private static final int MAX_BYTES_PER_ENTITY = 64;
+
+    private static final AccessibilityPlusConfig CONFIG = new AccessibilityPlusConfig()
+    {
+        // A small panel keeps the thousands of frames quick.
+        @Override
+        public int dialogFontSize()
+        {
+            return 12;
+        }
+
+        @Override
+        public int dialogPanelWidth()
+        {
+            return 320;
+        }
+    };
+
+    public static void main(String[] args) throws Exception
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)
+            || !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported())
+        {
+            System.out.println("This JVM does not report per-thread allocation; nothing measured.");
+            return;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+
+        RenderQuality quality = new RenderQuality(CONFIG);
+        OverlayStyles styles = new OverlayStyles();
+
+        AccessibilityPlusPlugin plugin = new AccessibilityPlusPlugin();
+        Field snapshot = AccessibilityPlusPlugin.class.getDeclaredField("dialogSnapshot");
+        snapshot.setAccessible(true);
+        snapshot.set(plugin, DialogSnapshot.EMPTY.next("Hans", "Hello adventurer, how can I help you today?",
+            Arrays.asList("Who are you?", "Goodbye."), new Rectangle(0, 120, 320, 100)));
+
+        DialogTextOverlay dialog = new DialogTextOverlay(plugin, CONFIG, styles, new OptionViewport(), quality);
+        MinimapShapesOverlay minimap = new MinimapShapesOverlay(client(), CONFIG, styles, quality);
+
+        BufferedImage frame = new BufferedImage(340, 240, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+        g.setFont(new Font(Font.DIALOG, Font.PLAIN, 12));
+        g.setClip(0, 0, 340, 240);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        Path2D.Double path = new Path2D.Double();
+        Color fill = styles.minimapColors(CONFIG.minimapShapeOpacity()).fill;
+        for (int i = 0; i < WARMUP_FRAMES; i++)
+        {
+            dialog.render(g);
+            minimap.render(g);
+            drawShapes(g, path, fill);
+        }
+
+        long thread = Thread.currentThread().getId();
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < FRAMES; i++)
+        {
+            dialog.render(g);
+        }
+        long dialogBytes = threads.getThreadAllocatedBytes(thread) - before;
+
+        before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < FRAMES; i++)
+        {
+            minimap.render(g);
+        }
+        long minimapBytes = threads.getThreadAllocatedBytes(thread) - before;
+
+        before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < FRAMES; i++)
+        {
+            drawShapes(g, path, fill);
+        }
+        long java2dBytes = threads.getThreadAllocatedBytes(thread) - before;
+        g.dispose();
+
+        int shapes = 2 * ENTITIES + 1;
+        if (minimapBytes == 0)
+        {
+            System.out.println("No minimap shapes were drawn; the projection needs more of the client stubbed.");
+        }
+        System.out.printf("dialog   %8.1f bytes/frame%n", (double) dialogBytes / FRAMES);
+        System.out.printf("minimap  %8.1f bytes/frame, %5.1f per shape (%d shapes)%n",
+            (double) minimapBytes / FRAMES, (double) minimapBytes / FRAMES / shapes, shapes);
+        System.out.printf("  java2d %8.1f bytes/frame for the same fills and draws%n", (double) java2dBytes / FRAMES);
+        long ownBytes = minimapBytes - java2dBytes;
+        System.out.printf("  own    %8.1f bytes/frame, %5.1f per shape%n",
+            (double) ownBytes / FRAMES, (double) ownBytes / FRAMES / shapes);
+
+        // A few bytes of slack for the measurement itself, nowhere near one object per frame.
+        if (dialogBytes >= FRAMES)
+        {
+            throw new AssertionError("dialog overlay allocated " + dialogBytes + " bytes in " + FRAMES + " frames");
+        }
+        if (ownBytes > (long) FRAMES * shapes * MAX_BYTES_PER_ENTITY)
+        {
+            throw new AssertionError("minimap overlay allocated " + ownBytes + " bytes of its own in " + FRAMES
+                + " frames");
+        }
+    }
+
+    /**
+     * The fills and draws the minimap overlay makes for the entities of client(), without
+     * the overlay: one diamond, ENTITIES squares and ENTITIES triangles.
+     */
+    private static void drawShapes(Graphics2D g, Path2D.Double path, Color color)
+    {
+        g.setColor(color);
+        for (int i = 0; i < 2 * ENTITIES + 1; i++)
+        {
+            int x = 100 + i % 9 * 4;
+            int y = 100 + i / 9 * 4;
+            if (i % 2 == 0)
+            {
+                g.fillRect(x, y, 8, 8);
+                g.drawRect(x, y, 8, 8);
+                continue;
+            }
+            path.reset();
+            path.moveTo(x, y - 4);
+            path.lineTo(x - 4, y + 4);
+            path.lineTo(x + 4, y + 4);
+            path.closePath();
+            g.fill(path);
+            g.draw(path);
+        }
+    }
+
+    /**
+     * A client with a local player and ENTITIES players and NPCs scattered around it, and a
+     * visible minimap draw area for the projection.
+     */
+    private static Client client()
+    {
+        Point minimapOrigin = new Point(550, 10);
+        Widget minimapArea = (Widget) Proxy.newProxyInstance(Widget.class.getClassLoader(), new Class<?>[]{Widget.class},
+            (proxy, method, args) ->
+            {
+                switch (method.getName())
+                {
+                    case "getCanvasLocation":
+                        return minimapOrigin;
+                    case "getWidth":
+                    case "getHeight":
+                        return 152;
+                    default:
+                        Class<?> type = method.getReturnType();
+                        return type == int.class ? 0 : type == boolean.class ? false : null;
+                }
+            });
+
+        Player me = actor(Player.class, new LocalPoint(6400, 6400));
+        List<Player> players = new ArrayList<>();
+        List<NPC> npcs = new ArrayList<>();
+        players.add(me);
+        for (int i = 0; i < ENTITIES; i++)
+        {
+            players.add(actor(Player.class, new LocalPoint(6400 + 128 * (i % 7), 6400 - 128 * (i / 7))));
+            npcs.add(actor(NPC.class, new LocalPoint(6400 - 128 * (i % 5), 6400 + 128 * (i / 5))));
+        }
+
+        return (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class},
+            (proxy, method, args) ->
+            {
+                switch (method.getName())
+                {
+                    case "getLocalPlayer":
+                        return me;
+                    case "getPlayers":
+                        return players;
+                    case "getNpcs":
+                        return npcs;
+                    case "getWidget":
+                        return minimapArea;
+                    default:
+                        Class<?> type = method.getReturnType();
+                        return type == int.class ? 0 : type == boolean.class ? false : null;
+                }
+            });
+    }
+
+    private static <T extends Actor> T actor(Class<T> type, LocalPoint location)
+    {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+            (proxy, method, args) ->
+            {
+                if (method.getName().equals("getLocalLocation"))
+                {
+                    return location;
+                }
+                Class<?> ret = method.getReturnType();
+                return ret == int.class ? 0 : ret == boolean.class ? false : null;
+            }));
+    }
+}
@@ -0,0 +1,66 @@
+package com.accessibilityplus;
+
+/**
+ * Rough comparison of TextSanitizer against the regex clean() it replaced.
+ * Run with ./gradlew benchmark -Pbenchmark=TextSanitizerBenchmark; it is not part of the
+ * test suite.
+ *
+ * Three cases: the regex implementation, the same string objects every tick (what widget
+ * reads look like while a dialog is static) and the single-pass scan with no cache.
+ */
+public class TextSanitizerBenchmark
+{
+    private static final String[] SAMPLES = {
+        "Select an Option",
+        "<col=0000ff>Hans</col>",
+        "Hello there, adventurer! Have you heard about the<br>troubles at the castle lately?",
+        "Click here to continue",
+        "<col=ff0000>Warning:</col> the dungeon ahead is <col=ffff00>very</col> dangerous.",
+        "I'd like to buy something.",
+        "\u00A0\u00A0Never mind.\u00A0",
+        "Iron Man: hi everyone",
+    };
+
+    private static final int ROUNDS = 2_000_000;
+
+    public static void main(String[] args)
+    {
+        // Warm up both paths so the JIT has compiled them.
+        run("warmup legacy", true, false);
+        run("warmup sanitizer", false, false);
+
+        run("legacy regex clean", true, false);
+        run("sanitizer, same strings (cached)", false, false);
+        run("sanitizer, scan only (no cache)", false, true);
+    }
+
+    private static void run(String label, boolean legacy, boolean uncached)
+    {
+        TextSanitizer sanitizer = new TextSanitizer();
+        long sink = 0;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            String s = SAMPLES[i % SAMPLES.length];
+
+            String out;
+            if (legacy)
+            {
+                out = TextSanitizerTest.legacyClean(s);
+            }
+            else if (uncached)
+            {
+                out = sanitizer.sanitize(s);
+            }
+            else
+            {
+                out = sanitizer.clean(s);
+            }
+            sink += out.length();
+        }
+
+        long ns = System.nanoTime() - start;
+        System.out.printf("%-40s %8.1f ns/op (sink %d)%n", label, (double) ns / ROUNDS, sink);
+    }
+}
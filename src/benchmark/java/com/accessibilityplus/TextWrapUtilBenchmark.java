@@ -0,0 +1,66 @@
+package com.accessibilityplus;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.util.List;
+
+/**
+ * Rough comparison of the GREEDY wrap against the measure-every-candidate wrap it replaced.
+ * Run with ./gradlew benchmark -Pbenchmark=TextWrapUtilBenchmark; it is not part of the
+ * test suite.
+ *
+ * Wraps a long quest-style paragraph at the default dialog size and width, plus a single
+ * long unbroken token that forces hard breaks.
+ */
+public class TextWrapUtilBenchmark
+{
+    private static final String PARAGRAPH =
+        "Ah, adventurer! You have arrived at last. The Duke has been expecting you ever since word reached " +
+        "the castle that the goblins of the eastern hills had stolen the sacred bells of Saradomin from the " +
+        "old chapel. Without them the undead in the swamp to the south grow bolder with every passing night, " +
+        "and the villagers of Draynor dare not leave their homes after dusk. I need you to travel through the " +
+        "forest, speak with the hermit who lives beside the waterfall, and recover the three bells before the " +
+        "next full moon. Take this amulet; it will protect you from the worst of the dark magic, but it will " +
+        "not stop a blade. Return to me when you have all three, and the kingdom will reward you handsomely.";
+
+    private static final String TOKEN = "Visit https://secure.runescape.com/m=news/" + "a".repeat(400);
+
+    private static final int ROUNDS = 20_000;
+
+    public static void main(String[] args)
+    {
+        FontMetrics fm = TextWrapUtilTest.metrics(new Font(Font.DIALOG, Font.PLAIN, 28), true);
+        int width = 720 - DialogLayout.PAD * 2;
+
+        // Warm up both paths so the JIT has compiled them.
+        for (int i = 0; i < 3; i++)
+        {
+            run("warmup legacy", fm, PARAGRAPH, width, true);
+            run("warmup greedy", fm, PARAGRAPH, width, false);
+            run("warmup legacy", fm, TOKEN, width, true);
+            run("warmup greedy", fm, TOKEN, width, false);
+        }
+
+        run("legacy, paragraph", fm, PARAGRAPH, width, true);
+        run("greedy, paragraph", fm, PARAGRAPH, width, false);
+        run("legacy, hard breaks", fm, TOKEN, width, true);
+        run("greedy, hard breaks", fm, TOKEN, width, false);
+    }
+
+    private static void run(String label, FontMetrics fm, String text, int width, boolean legacy)
+    {
+        long sink = 0;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < ROUNDS; i++)
+        {
+            List<String> lines = legacy
+                ? TextWrapUtilTest.legacyWrap(fm, text, width)
+                : TextWrapUtil.wrap(fm, text, width, AccessibilityPlusConfig.WrapMode.GREEDY);
+            sink += lines.size();
+        }
+
+        long ns = System.nanoTime() - start;
+        System.out.printf("%-40s %10.1f ns/op (sink %d)%n", label, (double) ns / ROUNDS, sink);
+    }
+}
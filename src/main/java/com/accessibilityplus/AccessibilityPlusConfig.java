@@ -30,12 +30,53 @@ public interface AccessibilityPlusConfig extends Config
     )
     String minimapSection = "minimapSection";
 
+    @ConfigSection(
+            name = "Magnifier",
+            description = "Magnifying lens settings",
+            position = 3
+    )
+    String magnifierSection = "magnifierSection";
+
+    @ConfigSection(
+            name = "Dialog phrases",
+            description = "Extra phrases for recognising dialogs, e.g. for non-English clients",
+            position = 4,
+            closedByDefault = true
+    )
+    String phrasesSection = "phrasesSection";
+
+    @ConfigSection(
+            name = "Performance",
+            description = "Overlay render time settings",
+            position = 5,
+            closedByDefault = true
+    )
+    String performanceSection = "performanceSection";
+
     enum DialogTheme
     {
         PARCHMENT,
         BLACK_PANEL
     }
 
+    enum WrapMode
+    {
+        GREEDY,
+        BALANCED
+    }
+
+    enum MagnifierFocus
+    {
+        MOUSE,
+        DIALOG
+    }
+
+    enum MagnifierScaling
+    {
+        NEAREST,
+        BILINEAR
+    }
+
     // --------------------
     // Dialog
     // --------------------
@@ -115,6 +156,79 @@ public interface AccessibilityPlusConfig extends Config
         return 240;
     }
 
+    @Range(min = 50, max = 5000)
+    @ConfigItem(
+            keyName = "fallbackScanBudgetMicros",
+            name = "Scan budget (us)",
+            description = "Time per game tick the plugin may spend searching for non-standard option menus. Larger searches continue on the next tick.",
+            section = dialogSection,
+            position = 6
+    )
+    default int fallbackScanBudgetMicros()
+    {
+        return 500;
+    }
+
+    @ConfigItem(
+            keyName = "lowLatencyDialog",
+            name = "Low latency",
+            description = "Check the standard dialog every client frame instead of every game tick, and read its options without waiting for them to settle.",
+            section = dialogSection,
+            position = 7
+    )
+    default boolean lowLatencyDialog()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+            keyName = "showTranscript",
+            name = "Transcript panel",
+            description = "Add a side panel with the history of dialog lines and options seen this session.",
+            section = dialogSection,
+            position = 8
+    )
+    default boolean showTranscript()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+            keyName = "cachePanelImage",
+            name = "Pre-rendered panel",
+            description = "Paint the dialog panel into an image once per change and copy it to the screen each frame, instead of redrawing it every frame.",
+            section = dialogSection,
+            position = 9
+    )
+    default boolean cachePanelImage()
+    {
+        return true;
+    }
+
+    @ConfigItem(
+            keyName = "dialogWrapMode",
+            name = "Line breaking",
+            description = "GREEDY fills each line as far as it goes. BALANCED keeps the same number of lines but evens out their lengths, which reads better at large text sizes.",
+            section = dialogSection,
+            position = 10
+    )
+    default WrapMode dialogWrapMode()
+    {
+        return WrapMode.GREEDY;
+    }
+
+    @ConfigItem(
+            keyName = "autoFitText",
+            name = "Auto-fit text",
+            description = "Shrink the text, down to 12, until the dialog and its visible options fit on screen. Text size becomes the largest size used.",
+            section = dialogSection,
+            position = 11
+    )
+    default boolean autoFitText()
+    {
+        return false;
+    }
+
     // --------------------
     // Speech
     // --------------------
@@ -303,4 +417,152 @@ public interface AccessibilityPlusConfig extends Config
     {
         return 220;
     }
+
+    // --------------------
+    // Magnifier
+    // --------------------
+
+    @ConfigItem(
+            keyName = "enableMagnifier",
+            name = "Enable magnifier",
+            description = "Show an enlarged copy of the area around the mouse. Not available with the GPU plugin, which draws the game world outside the copied image.",
+            section = magnifierSection,
+            position = 0
+    )
+    default boolean enableMagnifier()
+    {
+        return false;
+    }
+
+    @ConfigItem(
+            keyName = "magnifierFocus",
+            name = "Follow",
+            description = "MOUSE magnifies around the mouse. DIALOG keeps the magnified area on the dialog while one is open, following the mouse along it.",
+            section = magnifierSection,
+            position = 1
+    )
+    default MagnifierFocus magnifierFocus()
+    {
+        return MagnifierFocus.MOUSE;
+    }
+
+    @Range(min = 2, max = 6)
+    @ConfigItem(
+            keyName = "magnifierZoom",
+            name = "Zoom",
+            description = "How many times larger the magnified area is drawn.",
+            section = magnifierSection,
+            position = 2
+    )
+    default int magnifierZoom()
+    {
+        return 3;
+    }
+
+    @Range(min = 40, max = 400)
+    @ConfigItem(
+            keyName = "magnifierWidth",
+            name = "Area width",
+            description = "Width in pixels of the area that is magnified.",
+            section = magnifierSection,
+            position = 3
+    )
+    default int magnifierWidth()
+    {
+        return 160;
+    }
+
+    @Range(min = 20, max = 300)
+    @ConfigItem(
+            keyName = "magnifierHeight",
+            name = "Area height",
+            description = "Height in pixels of the area that is magnified.",
+            section = magnifierSection,
+            position = 4
+    )
+    default int magnifierHeight()
+    {
+        return 60;
+    }
+
+    @ConfigItem(
+            keyName = "magnifierScaling",
+            name = "Scaling",
+            description = "NEAREST keeps hard pixel edges. BILINEAR smooths them.",
+            section = magnifierSection,
+            position = 5
+    )
+    default MagnifierScaling magnifierScaling()
+    {
+        return MagnifierScaling.BILINEAR;
+    }
+
+    // --------------------
+    // Dialog phrases
+    // --------------------
+
+    @ConfigItem(
+            keyName = "extraHeaderPhrases",
+            name = "Option menu headers",
+            description = "Comma separated phrases that mark an option menu header, in addition to the English ones (e.g. \"Select an Option\").",
+            section = phrasesSection,
+            position = 0
+    )
+    default String extraHeaderPhrases()
+    {
+        return "";
+    }
+
+    @ConfigItem(
+            keyName = "extraContinuePhrases",
+            name = "Continue prompts",
+            description = "Comma separated phrases that mark a continue prompt, in addition to \"Click here to continue\".",
+            section = phrasesSection,
+            position = 1
+    )
+    default String extraContinuePhrases()
+    {
+        return "";
+    }
+
+    @ConfigItem(
+            keyName = "extraNoisePhrases",
+            name = "Chat noise",
+            description = "Comma separated phrases whose widgets are never treated as dialog options, in addition to \"Press Enter to Chat\".",
+            section = phrasesSection,
+            position = 2
+    )
+    default String extraNoisePhrases()
+    {
+        return "";
+    }
+
+    // --------------------
+    // Performance
+    // --------------------
+
+    @ConfigItem(
+            keyName = "adaptiveQuality",
+            name = "Adaptive quality",
+            description = "When the overlays take longer than the budget to draw, drop text shadows, then gradients and rounded corners, then antialiasing, then limit minimap shapes. Quality returns when there is time to spare.",
+            section = performanceSection,
+            position = 0
+    )
+    default boolean adaptiveQuality()
+    {
+        return true;
+    }
+
+    @Range(min = 200, max = 16000)
+    @ConfigItem(
+            keyName = "renderBudgetMicros",
+            name = "Render budget (us)",
+            description = "Average time per frame the overlays may spend drawing before quality is lowered.",
+            section = performanceSection,
+            position = 1
+    )
+    default int renderBudgetMicros()
+    {
+        return 2000;
+    }
 }
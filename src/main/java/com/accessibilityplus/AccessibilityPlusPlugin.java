@@ -5,24 +5,35 @@ import com.google.inject.Provides;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.LinkedHashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import javax.inject.Inject;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
+import net.runelite.api.events.BeforeRender;
+import net.runelite.api.events.ClientTick;
+import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.MenuOptionClicked;
+import net.runelite.api.events.ScriptPostFired;
+import net.runelite.api.events.WidgetClosed;
+import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.widgets.ComponentID;
 import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetUtil;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.input.KeyManager;
+import net.runelite.client.input.MouseManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.client.ui.ClientToolbar;
+import net.runelite.client.ui.NavigationButton;
 import net.runelite.client.ui.overlay.OverlayManager;
 
 @Slf4j
@@ -48,29 +59,64 @@ public class AccessibilityPlusPlugin extends Plugin
     @Inject
     private OverlayManager overlayManager;
 
+    @Inject
+    private ClientToolbar clientToolbar;
+
+    @Inject
+    private KeyManager keyManager;
+
+    @Inject
+    private MouseManager mouseManager;
+
     @Inject
     private DialogTextOverlay dialogTextOverlay;
 
     @Inject
     private MinimapShapesOverlay minimapShapesOverlay;
 
+    @Inject
+    private MagnifierOverlay magnifierOverlay;
+
+    // Scroll position of long option lists; wheel and Page Up / Page Down
+    @Inject
+    private OptionViewport optionViewport;
+
+    // Colors and strokes shared by both overlays, rebuilt after a config change
+    @Inject
+    private OverlayStyles overlayStyles;
+
+    @Inject
+    private RenderQuality renderQuality;
+
     @Inject
     private TtsController ttsController;
 
-    @Getter
-    private String speakerName = "";
+    @Inject
+    private DialogLayoutReader dialogLayoutReader;
 
-    @Getter
+    // Learned dialog transitions, used to synthesize the likely next line ahead of time
+    @Inject
+    private ConversationGraph conversationGraph;
+
+    // Working state, only touched on the client thread. Readers use dialogSnapshot.
+    private String speakerName = "";
     private String dialogText = "";
+    private StyledText dialogStyledText = StyledText.plain("");
+    private final List<String> dialogOptions = new ArrayList<>();
+    private final List<StyledText> dialogStyledOptions = new ArrayList<>(); // empty unless styled
+    private Rectangle dialogBounds = null;
 
+    // Published copy of the state above for the overlay and TTS; replaced, never mutated.
     @Getter
-    private boolean chatboxInputOpen = false;
+    private volatile DialogSnapshot dialogSnapshot = DialogSnapshot.EMPTY;
 
     @Getter
-    private final List<String> dialogOptions = new ArrayList<>();
+    private boolean chatboxInputOpen = false;
 
-    @Getter
-    private Rectangle dialogBounds = null;
+    // Session history for the side panel; fixed memory however long the session runs
+    private final Transcript transcript = new Transcript();
+    private TranscriptPanel transcriptPanel;
+    private NavigationButton transcriptButton;
 
     // --------------------
     // TTS timing / stability helpers
@@ -78,21 +124,67 @@ public class AccessibilityPlusPlugin extends Plugin
     private String pendingOptionsKey = "";
     private long pendingOptionsFirstSeenAt = 0L;
 
-    // Cache option roots so we don't brute-scan thousands of widgets every tick
-    private final List<WidgetRef> cachedOptionRoots = new ArrayList<>();
+    // Shared by every widget text read; caches results per raw string
+    private static final TextSanitizer TEXT_SANITIZER = new TextSanitizer();
 
-    private static final class WidgetRef
-    {
-        private final int group;
-        private final int child;
+    // Options kept per dialog. The overlay scrolls through long lists, so this is only a
+    // safety bound for runaway heuristic matches.
+    private static final int MAX_OPTIONS = 128;
 
-        private WidgetRef(int group, int child)
-        {
-            this.group = group;
-            this.child = child;
-        }
+    // Learned, persisted option roots so we don't brute-scan thousands of widgets every tick
+    @Inject
+    private OptionRootIndex optionRootIndex;
+
+    // Heuristic fallback state, reused across ticks
+    @Inject
+    private OptionTreeWalker optionTreeWalker;
+
+    private static final int[] FALLBACK_GROUPS = {162, 161};
+    private static final int FALLBACK_MAX_CHILD = 1400;
+    private static final int MAX_OPTION_ROOTS = 3;
+    private static final Comparator<OptionTreeWalker.OptionCandidate> CANDIDATE_ORDER = Comparator
+        .comparingInt((OptionTreeWalker.OptionCandidate c) -> c.bounds.y)
+        .thenComparingInt(c -> c.bounds.x);
+
+    private final List<OptionTreeWalker.OptionCandidate> candidates = new ArrayList<>();
+    private final Set<String> seenOptionTexts = new HashSet<>();
+
+    // Roots matched by the last fallback pass with their fingerprints and results, so an
+    // unchanged menu is reused and only changed roots are walked again.
+    private final MatchedRoot[] matchedRoots = {new MatchedRoot(), new MatchedRoot(), new MatchedRoot()};
+    private int matchedRootCount = 0;
+
+    // Full sweeps over the fallback groups are spread across ticks within a time budget.
+    @Getter
+    private final FallbackRootScanner fallbackRootScanner = new FallbackRootScanner(FALLBACK_GROUPS, FALLBACK_MAX_CHILD);
+    private final FallbackRootScanner.RootVisitor fallbackRootVisitor =
+        (group, child) -> walkOptionRoot(group, child) && matchedRootCount >= MAX_OPTION_ROOTS;
+
+    private final List<String> fallbackOptions = new ArrayList<>();
+    private Rectangle fallbackBounds = null;
+
+    private static final class MatchedRoot
+    {
+        private int group;
+        private int child;
+        private long fingerprint;
+        private final OptionTreeWalker.CandidateList candidates = new OptionTreeWalker.CandidateList();
+        private Rectangle anchorBounds;
     }
 
+    // --------------------
+    // Event-driven dialog detection
+    // --------------------
+    // Set by widget/script events, consumed by the next game tick. While false and no dialog
+    // is open, onGameTick does no widget work at all.
+    private boolean dialogDirty = true;
+
+    // Standard dialog interfaces currently loaded, maintained from WidgetLoaded / WidgetClosed.
+    private final Set<Integer> openDialogGroups = new HashSet<>();
+
+    // True when the published dialog came from DialogLayoutReader rather than the heuristics.
+    private boolean structuralDialog = false;
+
     @Provides
     AccessibilityPlusConfig provideConfig(ConfigManager configManager)
     {
@@ -104,6 +196,25 @@ public class AccessibilityPlusPlugin extends Plugin
     {
         overlayManager.add(dialogTextOverlay);
         overlayManager.add(minimapShapesOverlay);
+        overlayManager.add(magnifierOverlay);
+        keyManager.registerKeyListener(optionViewport);
+        mouseManager.registerMouseWheelListener(optionViewport);
+
+        transcriptPanel = new TranscriptPanel(transcript);
+        transcriptButton = NavigationButton.builder()
+            .tooltip("Dialog transcript")
+            .icon(TranscriptPanel.icon())
+            .priority(10)
+            .panel(transcriptPanel)
+            .build();
+        if (config.showTranscript())
+        {
+            clientToolbar.addNavigation(transcriptButton);
+        }
+
+        optionRootIndex.load();
+        conversationGraph.load();
+        clientThread.invokeLater(this::rebuildPhrases);
 
         if (ttsController != null)
         {
@@ -116,6 +227,11 @@ public class AccessibilityPlusPlugin extends Plugin
     {
         overlayManager.remove(dialogTextOverlay);
         overlayManager.remove(minimapShapesOverlay);
+        overlayManager.remove(magnifierOverlay);
+        keyManager.unregisterKeyListener(optionViewport);
+        mouseManager.unregisterMouseWheelListener(optionViewport);
+        clientToolbar.removeNavigation(transcriptButton);
+        transcript.clear();
 
         try
         {
@@ -128,15 +244,24 @@ public class AccessibilityPlusPlugin extends Plugin
         {
         }
 
-        speakerName = "";
-        dialogText = "";
         chatboxInputOpen = false;
-        dialogOptions.clear();
-        dialogBounds = null;
+        clearDialog();
 
         pendingOptionsKey = "";
         pendingOptionsFirstSeenAt = 0L;
-        cachedOptionRoots.clear();
+        optionRootIndex.save();
+        conversationGraph.save();
+        log.debug("Option label rule counters:\n{}", optionTreeWalker.labelClassifier().summary());
+        matchedRootCount = 0;
+        fallbackRootScanner.cancel();
+        fallbackOptions.clear();
+        fallbackBounds = null;
+        dialogLayoutReader.invalidate();
+        renderQuality.reset();
+
+        openDialogGroups.clear();
+        structuralDialog = false;
+        dialogDirty = true;
     }
 
     @Subscribe
@@ -164,8 +289,38 @@ public class AccessibilityPlusPlugin extends Plugin
             return;
         }
 
-        // Rebuild speech engine on relevant config changes
         String key = event.getKey();
+
+        // Our own persisted state written back through the config; nothing to re-read or repaint.
+        if (OptionRootIndex.CONFIG_KEY.equals(key) || ConversationGraph.CONFIG_KEY.equals(key))
+        {
+            return;
+        }
+
+        // Overlay settings can change what we extract, so re-read on the next tick.
+        dialogDirty = true;
+        overlayStyles.invalidate();
+
+        if ("showTranscript".equals(key))
+        {
+            if (config.showTranscript())
+            {
+                clientToolbar.addNavigation(transcriptButton);
+            }
+            else
+            {
+                clientToolbar.removeNavigation(transcriptButton);
+            }
+            return;
+        }
+
+        if (key.endsWith("Phrases"))
+        {
+            clientThread.invokeLater(this::rebuildPhrases);
+            return;
+        }
+
+        // Rebuild speech engine on relevant config changes
         if ("enableTts".equals(key) || key.startsWith("cloudTts") || key.startsWith("tts"))
         {
             clientThread.invokeLater(() ->
@@ -181,9 +336,78 @@ public class AccessibilityPlusPlugin extends Plugin
         }
     }
 
+    /**
+     * Compile the English phrase pack plus the user's extra phrases into the walker's matcher.
+     * Previously matched roots may no longer qualify, so they are dropped.
+     */
+    private void rebuildPhrases()
+    {
+        optionTreeWalker.setPhrases(PhrasePack.english()
+            .withExtra(config.extraHeaderPhrases(), config.extraContinuePhrases(), config.extraNoisePhrases())
+            .compile());
+        matchedRootCount = 0;
+        dialogDirty = true;
+    }
+
+    @Subscribe
+    public void onGameStateChanged(GameStateChanged event)
+    {
+        if (event.getGameState() != GameState.LOGGED_IN)
+        {
+            openDialogGroups.clear();
+        }
+        if (event.getGameState() == GameState.LOGIN_SCREEN)
+        {
+            conversationGraph.save();
+        }
+        dialogDirty = true;
+    }
+
+    @Subscribe
+    public void onWidgetLoaded(WidgetLoaded event)
+    {
+        int group = event.getGroupId();
+        if (DialogLayoutReader.isKnownGroup(group))
+        {
+            openDialogGroups.add(group);
+            dialogDirty = true;
+        }
+        else if (isChatboxGroup(group))
+        {
+            // Non-standard option menus are loaded into the chatbox containers. Other
+            // interfaces (bank, inventory, ...) cannot hold a dialog, so they cost nothing.
+            dialogDirty = true;
+        }
+    }
+
+    @Subscribe
+    public void onWidgetClosed(WidgetClosed event)
+    {
+        openDialogGroups.remove(event.getGroupId());
+        dialogDirty = true;
+    }
+
+    @Subscribe
+    public void onScriptPostFired(ScriptPostFired event)
+    {
+        // Dialog scripts rewrite text/options in place without reloading the interface.
+        // Only care while something is on screen; otherwise scripts are unrelated to us.
+        if (isDialogActive())
+        {
+            dialogDirty = true;
+        }
+    }
+
     @Subscribe
     public void onMenuOptionClicked(MenuOptionClicked ev)
     {
+        // Clicking continue / an option always changes the chatbox. Walking, combat and
+        // clicks on other interfaces do not, so they must not start a re-read.
+        if (isDialogActive() || isChatboxGroup(WidgetUtil.componentToInterface(ev.getParam1())))
+        {
+            dialogDirty = true;
+        }
+
         if (ttsController == null || !config.enableTts())
         {
             return;
@@ -201,11 +425,8 @@ public class AccessibilityPlusPlugin extends Plugin
     {
         if (client == null || client.getGameState() != GameState.LOGGED_IN)
         {
-            speakerName = "";
-            dialogText = "";
             chatboxInputOpen = false;
-            dialogOptions.clear();
-            dialogBounds = null;
+            clearDialog();
             return;
         }
 
@@ -213,462 +434,465 @@ public class AccessibilityPlusPlugin extends Plugin
 
         if (!config.enableDialogOverlay())
         {
-            speakerName = "";
-            dialogText = "";
-            dialogOptions.clear();
-            dialogBounds = null;
+            clearDialog();
             return;
         }
 
-        String npcName = getTextSafe(ComponentID.DIALOG_NPC_NAME);
-        String npcText = getTextSafe(ComponentID.DIALOG_NPC_TEXT);
-
-        if (!isBlank(npcText))
+        if (dialogDirty)
         {
-            speakerName = clean(npcName);
-            dialogText = clean(npcText);
+            dialogDirty = false;
+            refreshDialog();
         }
-        else
+
+        if (!isDialogActive())
         {
-            String playerText = getTextSafe(ComponentID.DIALOG_PLAYER_TEXT);
-            if (!isBlank(playerText))
-            {
-                speakerName = "You";
-                dialogText = clean(playerText);
-            }
-            else
-            {
-                speakerName = "";
-                dialogText = "";
-            }
+            pendingOptionsKey = "";
+            pendingOptionsFirstSeenAt = 0L;
+            return;
         }
 
-        updateDialogOptionsAndBounds();
+        speakIfNeeded();
+    }
 
-        if (config.enableTts() && ttsController != null)
+    /**
+     * Low latency mode: between game ticks, look for changes in the standard dialog
+     * components every client frame so new lines are shown and spoken within a frame.
+     * Only the known components are hashed, so the per-frame cost is a few widget lookups;
+     * the heuristic fallback stays on the game tick. While a standard dialog is showing,
+     * speech is retried every frame too, so a line held back by the click suppression or
+     * the cooldown is spoken as soon as they allow instead of on the next tick.
+     */
+    @Subscribe
+    public void onClientTick(ClientTick tick)
+    {
+        if (openDialogGroups.isEmpty() || !config.lowLatencyDialog() || !config.enableDialogOverlay())
         {
-            String speakSpeaker = speakerName;
-            String speakDialog = dialogText;
-
-            List<String> speakOptions = null;
-
-            // Only attempt to speak options when there are options on screen.
-            if (!dialogOptions.isEmpty())
-            {
-                StringBuilder sb = new StringBuilder();
-                int n = Math.min(10, dialogOptions.size());
-                for (int i = 0; i < n; i++)
-                {
-                    String o = dialogOptions.get(i);
-                    if (o != null)
-                    {
-                        sb.append(o.trim());
-                    }
-                    sb.append('|');
-                }
-
-                String optionsKey = sb.toString();
-                long now = System.currentTimeMillis();
+            return;
+        }
 
-                if (!optionsKey.equals(pendingOptionsKey))
-                {
-                    pendingOptionsKey = optionsKey;
-                    pendingOptionsFirstSeenAt = now;
-                }
+        if (client.getGameState() != GameState.LOGGED_IN)
+        {
+            return;
+        }
 
-                // Require a short stable window before speaking.
-                if (now - pendingOptionsFirstSeenAt >= 250L)
-                {
-                    speakOptions = dialogOptions;
-                }
-            }
-            else
+        if (dialogLayoutReader.isStale())
+        {
+            if (!refreshDialog(false))
             {
-                pendingOptionsKey = "";
-                pendingOptionsFirstSeenAt = 0L;
+                // No standard dialog: leave it to the heuristics on the next game tick.
+                dialogDirty = true;
+                return;
             }
+            dialogDirty = false;
+        }
 
-            ttsController.updateFromDialog(speakSpeaker, speakDialog, speakOptions);
+        if (structuralDialog)
+        {
+            speakIfNeeded();
         }
     }
 
-    private boolean isChatboxTyping()
+    /**
+     * Close the previous frame's overlay render time into the adaptive quality window.
+     */
+    @Subscribe
+    public void onBeforeRender(BeforeRender event)
     {
-        Widget chatboxInput = client.getWidget(ComponentID.CHATBOX_INPUT);
-        return chatboxInput != null && !chatboxInput.isHidden();
+        renderQuality.frameStarted();
     }
 
-    private String getTextSafe(int componentId)
+    private static boolean isChatboxGroup(int group)
     {
-        try
+        if (DialogLayoutReader.isKnownGroup(group))
         {
-            Widget w = client.getWidget(componentId);
-            return w == null ? null : w.getText();
+            return true;
         }
-        catch (Exception e)
+        for (int g : FALLBACK_GROUPS)
         {
-            return null;
-        }
-    }
-
-    private void updateDialogOptionsAndBounds()
-    {
-        dialogOptions.clear();
-        dialogBounds = null;
-
-        // Anchor bounds to actual dialog widgets (safe, small)
-        unionBounds(client.getWidget(ComponentID.DIALOG_NPC_TEXT));
-        unionBounds(client.getWidget(ComponentID.DIALOG_PLAYER_TEXT));
-        unionBounds(client.getWidget(ComponentID.DIALOG_NPC_NAME));
-
-        final int[] candidateGroups = new int[]{219, 231, 193, 162, 161};
-        final int maxChildScan = 1400;
-
-        final List<WidgetRef> rootsToScan = new ArrayList<>();
-
-        for (WidgetRef ref : cachedOptionRoots)
-        {
-            Widget root = client.getWidget(ref.group, ref.child);
-            if (root == null || root.isHidden())
-            {
-                continue;
-            }
-            if (containsSelectAnOption(root, 0))
+            if (g == group)
             {
-                rootsToScan.add(ref);
+                return true;
             }
         }
+        return false;
+    }
 
-        if (rootsToScan.isEmpty())
-        {
-            outer:
-            for (int group : candidateGroups)
-            {
-                for (int child = 0; child < maxChildScan; child++)
-                {
-                    Widget root = client.getWidget(group, child);
-                    if (root == null || root.isHidden())
-                    {
-                        continue;
-                    }
-                    if (containsSelectAnOption(root, 0))
-                    {
-                        rootsToScan.add(new WidgetRef(group, child));
-                        if (rootsToScan.size() >= 3)
-                        {
-                            break outer;
-                        }
-                    }
-                }
-            }
+    private boolean isDialogActive()
+    {
+        return !openDialogGroups.isEmpty() || !dialogText.isEmpty() || !dialogOptions.isEmpty();
+    }
 
-            cachedOptionRoots.clear();
-            cachedOptionRoots.addAll(rootsToScan);
-        }
+    private void refreshDialog()
+    {
+        refreshDialog(true);
+    }
 
-        if (rootsToScan.isEmpty())
+    /**
+     * @param allowFallback whether to run the heuristic scan when no standard dialog is open
+     * @return false, without touching any state, if no standard dialog is open and
+     *         allowFallback is false
+     */
+    private boolean refreshDialog(boolean allowFallback)
+    {
+        // Standard dialogs are read structurally from known components.
+        DialogLayoutReader.KnownDialog known = dialogLayoutReader.read();
+        if (known == null && !allowFallback)
         {
-            return;
+            return false;
         }
 
-        final List<OptionCandidate> candidates = new ArrayList<>();
+        dialogOptions.clear();
+        dialogStyledOptions.clear();
+        dialogBounds = null;
 
-        for (WidgetRef ref : rootsToScan)
+        structuralDialog = known != null;
+        if (known != null)
         {
-            Widget root = client.getWidget(ref.group, ref.child);
-            if (root == null || root.isHidden())
+            fallbackRootScanner.cancel();
+            speakerName = known.speaker;
+            dialogText = known.text;
+            dialogStyledText = known.styledText;
+            for (int i = 0; i < known.options.size() && dialogOptions.size() < MAX_OPTIONS; i++)
             {
-                continue;
+                dialogOptions.add(known.options.get(i));
+                dialogStyledOptions.add(known.styledOptions.get(i));
             }
-            collectOptionCandidates(root, 0, candidates);
+            dialogBounds = known.bounds == null ? null : new Rectangle(known.bounds);
         }
-
-        candidates.sort(Comparator
-            .comparingInt((OptionCandidate c) -> c.bounds != null ? c.bounds.y : Integer.MAX_VALUE)
-            .thenComparingInt(c -> c.bounds != null ? c.bounds.x : Integer.MAX_VALUE));
-
-        Map<String, Boolean> seen = new LinkedHashMap<>();
-        for (OptionCandidate c : candidates)
+        else
         {
-            if (!seen.containsKey(c.text))
-            {
-                seen.put(c.text, Boolean.TRUE);
-                dialogOptions.add(c.text);
-                unionBoundsByRect(c.bounds);
-            }
-            if (dialogOptions.size() >= 10)
-            {
-                break;
-            }
+            // Unrecognised interface: fall back to the text heuristics.
+            speakerName = "";
+            dialogText = "";
+            dialogStyledText = StyledText.plain("");
+            updateDialogOptionsAndBounds();
         }
 
-        ensureDialogBoundsHeightForOptions(dialogOptions.size());
         clampDialogBoundsToCanvas();
+        publishDialog();
+        return true;
     }
 
-    private void clampDialogBoundsToCanvas()
+    private void clearDialog()
     {
-        if (dialogBounds == null || client == null)
-        {
-            return;
-        }
-
-        int cw = client.getCanvasWidth();
-        int ch = client.getCanvasHeight();
+        speakerName = "";
+        dialogText = "";
+        dialogStyledText = StyledText.plain("");
+        dialogOptions.clear();
+        dialogStyledOptions.clear();
+        dialogBounds = null;
+        structuralDialog = false;
+        publishDialog();
+    }
 
-        if (cw <= 0 || ch <= 0)
+    /**
+     * Swap in a new snapshot if the working state differs from the published one.
+     * Unchanged content keeps the old snapshot and version.
+     */
+    private void publishDialog()
+    {
+        DialogSnapshot previous = dialogSnapshot;
+        DialogSnapshot snapshot = previous.next(speakerName, dialogStyledText, dialogOptions, dialogStyledOptions, dialogBounds);
+        if (snapshot == previous)
         {
             return;
         }
 
-        int x = Math.max(0, dialogBounds.x);
-        int y = Math.max(0, dialogBounds.y);
-        int w = Math.min(dialogBounds.width, cw - x);
-        int h = Math.min(dialogBounds.height, ch - y);
+        dialogSnapshot = snapshot;
 
-        if (w <= 0 || h <= 0)
+        // Bounds-only changes are not new history.
+        if (!snapshot.isEmpty() && (!snapshot.getDialogKey().equals(previous.getDialogKey())
+            || !snapshot.getOptionsKey().equals(previous.getOptionsKey())))
         {
-            dialogBounds = null;
-            return;
+            transcript.append(System.currentTimeMillis(), snapshot.getSpeaker(), snapshot.getText(), snapshot.getOptions());
+            transcriptPanel.transcriptChanged();
         }
 
-        dialogBounds = new Rectangle(x, y, w, h);
+        prefetchLikelyNext(snapshot);
     }
 
-    private void ensureDialogBoundsHeightForOptions(int optionCount)
+    /**
+     * Record the new screen in the conversation graph and have TTS synthesize the screens
+     * that usually follow it, so clicking continue does not wait for the network.
+     */
+    private void prefetchLikelyNext(DialogSnapshot snapshot)
     {
-        if (dialogBounds == null || optionCount <= 0)
+        List<ConversationGraph.Node> next = conversationGraph.observe(snapshot);
+        if (ttsController == null || !config.enableTts())
         {
             return;
         }
 
-        final int topPadding = 18;
-        final int bottomPadding = 18;
-        final int perOptionHeight = 32;
-        final int headerHeight = 18;
-
-        int needed = topPadding + headerHeight + bottomPadding + (optionCount * perOptionHeight);
+        ttsController.dropStalePrefetches(snapshot);
 
-        if (dialogBounds.height < needed)
+        for (ConversationGraph.Node n : next)
         {
-            dialogBounds = new Rectangle(dialogBounds.x, dialogBounds.y, dialogBounds.width, needed);
+            ttsController.prefetch(n.speaker, n.text, n.options);
         }
     }
 
-    private static final class OptionCandidate
+    private void speakIfNeeded()
     {
-        private final String text;
-        private final Rectangle bounds;
-
-        private OptionCandidate(String text, Rectangle bounds)
+        if (config.enableTts() && ttsController != null)
         {
-            this.text = text;
-            this.bounds = bounds;
+            DialogSnapshot snapshot = dialogSnapshot;
+            boolean speakOptions = false;
+
+            // Only attempt to speak options when there are options on screen.
+            if (!snapshot.getOptions().isEmpty())
+            {
+                String optionsKey = snapshot.getOptionsKey();
+                long now = System.currentTimeMillis();
+
+                if (!optionsKey.equals(pendingOptionsKey))
+                {
+                    pendingOptionsKey = optionsKey;
+                    pendingOptionsFirstSeenAt = now;
+                }
+
+                // Heuristic menus need a short stable window before speaking; structural
+                // reads of the option interface are exact and can be spoken at once.
+                speakOptions = (structuralDialog && config.lowLatencyDialog())
+                    || now - pendingOptionsFirstSeenAt >= 250L;
+            }
+            else
+            {
+                pendingOptionsKey = "";
+                pendingOptionsFirstSeenAt = 0L;
+            }
+
+            ttsController.updateFromDialog(snapshot, speakOptions, structuralDialog);
         }
     }
 
-    private boolean isOptionMenuHeaderText(String lowerText)
+    private boolean isChatboxTyping()
     {
-        if (lowerText == null || lowerText.isEmpty())
-        {
-            return false;
-        }
-
-        return lowerText.contains("select an option")
-            || lowerText.contains("what would you like to say")
-            || lowerText.contains("what would you like to do")
-            || lowerText.contains("what would you like to ask");
+        Widget chatboxInput = client.getWidget(ComponentID.CHATBOX_INPUT);
+        return chatboxInput != null && !chatboxInput.isHidden();
     }
 
-    private boolean containsSelectAnOption(Widget w, int depth)
+    /**
+     * Heuristic option-menu detection for interfaces DialogLayoutReader does not recognise.
+     * The standard dialog groups are not scanned here; they are read structurally.
+     */
+    private void updateDialogOptionsAndBounds()
     {
-        if (w == null || w.isHidden() || depth > 10)
+        if (fallbackRootScanner.isActive())
         {
-            return false;
+            continueFallbackScan();
+            return;
         }
 
-        String t = clean(w.getText()).toLowerCase();
-        if (isOptionMenuHeaderText(t))
+        if (matchedRootCount > 0 && revalidateMatchedRoots())
         {
-            unionBounds(w);
-            return true;
+            return;
         }
 
-        Widget[] children = w.getChildren();
-        if (children != null)
-        {
-            for (Widget c : children)
-            {
-                if (containsSelectAnOption(c, depth + 1))
-                {
-                    return true;
-                }
-            }
-        }
+        matchedRootCount = 0;
+        optionTreeWalker.beginPass();
 
-        Widget[] staticChildren = w.getStaticChildren();
-        if (staticChildren != null)
+        // Consult learned roots first, most frequently hit first.
+        for (OptionRootIndex.Entry e : optionRootIndex.ranked())
         {
-            for (Widget c : staticChildren)
+            if (walkOptionRoot(e.group, e.child) && matchedRootCount >= MAX_OPTION_ROOTS)
             {
-                if (containsSelectAnOption(c, depth + 1))
-                {
-                    return true;
-                }
+                break;
             }
         }
 
-        Widget[] dyn = w.getDynamicChildren();
-        if (dyn != null)
+        if (matchedRootCount > 0)
         {
-            for (Widget c : dyn)
-            {
-                if (containsSelectAnOption(c, depth + 1))
-                {
-                    return true;
-                }
-            }
+            learnMatchedRoots();
+            mergeMatchedRoots();
+            return;
         }
 
-        return false;
+        fallbackRootScanner.start();
+        continueFallbackScan();
     }
 
-    private void collectOptionCandidates(Widget w, int depth, List<OptionCandidate> out)
+    /**
+     * Run one budgeted slice of the full fallback sweep. Roots found so far are published
+     * immediately; if the sweep is not finished the chatbox stays dirty so the next tick
+     * picks up where this one stopped.
+     */
+    private void continueFallbackScan()
     {
-        if (w == null || w.isHidden() || depth > 10)
+        long budgetNanos = Math.max(1, config.fallbackScanBudgetMicros()) * 1000L;
+
+        optionTreeWalker.beginPass();
+        boolean finished = fallbackRootScanner.step(budgetNanos, fallbackRootVisitor);
+
+        if (finished)
         {
-            return;
+            learnMatchedRoots();
         }
-
-        String t = clean(w.getText());
-        if (!t.isEmpty())
+        else
         {
-            String lower = t.toLowerCase();
-
-            if (isOptionMenuHeaderText(lower))
-            {
-                unionBounds(w);
-            }
-            else if (lower.contains("select an option") || lower.contains("click here to continue"))
-            {
-                unionBounds(w);
-            }
-            else
-            {
-                if (!t.equalsIgnoreCase(clean(dialogText)) && !t.equalsIgnoreCase(clean(speakerName)))
-                {
-                    if (!isChatTabLabel(lower) && looksLikeOptionLabel(t))
-                    {
-                        out.add(new OptionCandidate(t, w.getBounds()));
-                    }
-                }
-            }
+            dialogDirty = true;
         }
 
-        Widget[] children = w.getChildren();
-        if (children != null)
+        if (matchedRootCount > 0)
         {
-            for (Widget c : children)
-            {
-                collectOptionCandidates(c, depth + 1, out);
-            }
+            mergeMatchedRoots();
         }
-
-        Widget[] dyn = w.getDynamicChildren();
-        if (dyn != null)
+        else
         {
-            for (Widget c : dyn)
-            {
-                collectOptionCandidates(c, depth + 1, out);
-            }
+            fallbackOptions.clear();
+            fallbackBounds = null;
         }
     }
 
-    private static boolean isChatTabLabel(String lower)
+    private void learnMatchedRoots()
     {
-        return lower.equals("all") || lower.equals("game") || lower.equals("public") || lower.equals("private")
-            || lower.equals("channel") || lower.equals("clan") || lower.equals("trade") || lower.equals("friends");
+        for (int i = 0; i < matchedRootCount; i++)
+        {
+            optionRootIndex.learn(matchedRoots[i].group, matchedRoots[i].child);
+        }
     }
 
-    private static boolean looksLikeOptionLabel(String t)
+    /**
+     * Re-check the roots matched last time by fingerprint. Unchanged roots keep their
+     * candidates; changed roots are walked again.
+     *
+     * @return false if a root vanished or lost its header, meaning discovery must run again
+     */
+    private boolean revalidateMatchedRoots()
     {
-        if (t == null)
-        {
-            return false;
-        }
+        boolean changed = false;
+        optionTreeWalker.beginPass();
 
-        String s = t.trim();
-        if (s.length() < 2)
+        for (int i = 0; i < matchedRootCount; i++)
         {
-            return false;
-        }
+            MatchedRoot m = matchedRoots[i];
+            Widget root = client.getWidget(m.group, m.child);
+            if (root == null || root.isHidden())
+            {
+                return false;
+            }
 
-        if (s.equalsIgnoreCase("on") || s.equalsIgnoreCase("off"))
-        {
-            return false;
+            long fp = optionTreeWalker.fingerprint(root);
+            if (fp == m.fingerprint)
+            {
+                continue;
+            }
+
+            if (!optionTreeWalker.walk(root, dialogText, speakerName))
+            {
+                return false;
+            }
+
+            m.fingerprint = fp;
+            m.candidates.clear();
+            m.candidates.addAll(optionTreeWalker.candidates());
+            m.anchorBounds = optionTreeWalker.anchorBounds();
+            changed = true;
         }
 
-        if (s.matches("^\\d+\\.$"))
+        if (changed)
         {
-            return false;
+            mergeMatchedRoots();
         }
-
-        if (s.matches("^\\d+$") || s.matches("^\\d+:\\d+(?::\\d+)?$"))
+        else
         {
-            return false;
+            dialogOptions.addAll(fallbackOptions);
+            dialogBounds = fallbackBounds == null ? null : new Rectangle(fallbackBounds);
         }
+        return true;
+    }
 
-        if (looksLikeChatLine(s))
+    /**
+     * Walk one candidate root. Header detection, candidate collection and anchor bounds
+     * all come from the same single pass; candidates are kept only if a header was found.
+     */
+    private boolean walkOptionRoot(int group, int child)
+    {
+        Widget root = client.getWidget(group, child);
+        if (root == null || root.isHidden())
         {
             return false;
         }
 
-        if (looksLikeSystemChatNoise(s))
+        if (!optionTreeWalker.walk(root, dialogText, speakerName))
         {
             return false;
         }
 
+        MatchedRoot m = matchedRoots[matchedRootCount++];
+        m.group = group;
+        m.child = child;
+        m.candidates.clear();
+        m.candidates.addAll(optionTreeWalker.candidates());
+        m.anchorBounds = optionTreeWalker.anchorBounds();
+        m.fingerprint = optionTreeWalker.fingerprint(root);
         return true;
     }
 
-    private static boolean looksLikeChatLine(String s)
+    private void mergeMatchedRoots()
     {
-        return s != null && s.trim().matches("^[A-Za-z0-9 _\\-]{1,12}:\\s+.+$");
-    }
+        candidates.clear();
+        for (int i = 0; i < matchedRootCount; i++)
+        {
+            OptionTreeWalker.CandidateList found = matchedRoots[i].candidates;
+            for (int j = 0; j < found.size(); j++)
+            {
+                candidates.add(found.get(j));
+            }
+            unionBoundsByRect(matchedRoots[i].anchorBounds);
+        }
 
-    private static boolean looksLikeSystemChatNoise(String s)
-    {
-        if (s == null)
+        candidates.sort(CANDIDATE_ORDER);
+
+        seenOptionTexts.clear();
+        for (OptionTreeWalker.OptionCandidate c : candidates)
         {
-            return false;
+            if (seenOptionTexts.add(c.text))
+            {
+                dialogOptions.add(c.text);
+                unionBoundsByRect(c.bounds);
+            }
+            if (dialogOptions.size() >= MAX_OPTIONS)
+            {
+                break;
+            }
         }
-        String lower = s.trim().toLowerCase();
-        return lower.contains("press enter to chat");
+
+        fallbackOptions.clear();
+        fallbackOptions.addAll(dialogOptions);
+        fallbackBounds = dialogBounds == null ? null : new Rectangle(dialogBounds);
     }
 
-    private void unionBoundsByRect(Rectangle b)
+    private void clampDialogBoundsToCanvas()
     {
-        if (b == null)
+        if (dialogBounds == null || client == null)
         {
             return;
         }
-        if (dialogBounds == null)
+
+        int cw = client.getCanvasWidth();
+        int ch = client.getCanvasHeight();
+
+        if (cw <= 0 || ch <= 0)
         {
-            dialogBounds = new Rectangle(b);
+            return;
         }
-        else
+
+        int x = Math.max(0, dialogBounds.x);
+        int y = Math.max(0, dialogBounds.y);
+        int w = Math.min(dialogBounds.width, cw - x);
+        int h = Math.min(dialogBounds.height, ch - y);
+
+        if (w <= 0 || h <= 0)
         {
-            dialogBounds = dialogBounds.union(b);
+            dialogBounds = null;
+            return;
         }
+
+        dialogBounds = new Rectangle(x, y, w, h);
     }
 
-    private void unionBounds(Widget w)
+    private void unionBoundsByRect(Rectangle b)
     {
-        if (w == null)
-        {
-            return;
-        }
-        Rectangle b = w.getBounds();
         if (b == null)
         {
             return;
@@ -683,20 +907,8 @@ public class AccessibilityPlusPlugin extends Plugin
         }
     }
 
-    private static boolean isBlank(String s)
+    static String clean(String s)
     {
-        return s == null || s.trim().isEmpty();
-    }
-
-    private static String clean(String s)
-    {
-        if (s == null)
-        {
-            return "";
-        }
-        return s.replaceAll("<[^>]*>", " ")
-            .replace('\u00A0', ' ')
-            .trim()
-            .replaceAll("\\s+", " ");
+        return TEXT_SANITIZER.clean(s);
     }
 }
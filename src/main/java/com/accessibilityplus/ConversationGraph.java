@@ -0,0 +1,387 @@
+package com.accessibilityplus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.config.ConfigManager;
+
+/**
+ * Learned graph of dialog transitions: which line or option menu followed which.
+ *
+ * Each distinct dialog screen (speaker + line, or an option list) is a node; observing two
+ * screens in a row adds to the edge count between them. Quest and shop dialogue repeats a
+ * lot, so once a node has been seen its most common successors are good guesses for what
+ * comes next and can be synthesized before the user clicks continue.
+ *
+ * Bounded to MAX_NODES nodes with MAX_EDGES successors each, least used evicted first, and
+ * persisted through ConfigManager by save(), which the plugin calls on logout and shutdown
+ * only: the serialized graph is tens of KB and the profile is synced. Not thread-safe;
+ * only touched from the client thread.
+ */
+@Slf4j
+class ConversationGraph
+{
+    static final String CONFIG_KEY = "conversationGraph";
+
+    private static final int MAX_NODES = 256;
+    private static final int MAX_EDGES = 3;
+
+    // Halve all counts once any node reaches this, so old dialogue fades out.
+    private static final int AGE_THRESHOLD = 1 << 12;
+
+    private final ConfigManager configManager;
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private Node current;
+    private boolean persistDirty = false;
+
+    @Inject
+    ConversationGraph(ConfigManager configManager)
+    {
+        this.configManager = configManager;
+    }
+
+    static final class Node
+    {
+        final String key;
+        final String speaker;
+        final String text;
+        final List<String> options;
+        private int hits;
+
+        // Successors, most frequent first.
+        private final Node[] next = new Node[MAX_EDGES];
+        private final int[] nextCounts = new int[MAX_EDGES];
+        private int edgeCount;
+
+        private Node(String key, String speaker, String text, List<String> options, int hits)
+        {
+            this.key = key;
+            this.speaker = speaker;
+            this.text = text;
+            this.options = options;
+            this.hits = hits;
+        }
+
+        private void addEdge(Node to, int count)
+        {
+            for (int i = 0; i < edgeCount; i++)
+            {
+                if (next[i] == to)
+                {
+                    nextCounts[i] += count;
+                    bubbleUp(i);
+                    return;
+                }
+            }
+
+            if (edgeCount < MAX_EDGES)
+            {
+                next[edgeCount] = to;
+                nextCounts[edgeCount] = count;
+                bubbleUp(edgeCount++);
+            }
+            else
+            {
+                // Replace the weakest successor.
+                next[MAX_EDGES - 1] = to;
+                nextCounts[MAX_EDGES - 1] = count;
+                bubbleUp(MAX_EDGES - 1);
+            }
+        }
+
+        private void removeEdgesTo(Node to)
+        {
+            int w = 0;
+            for (int i = 0; i < edgeCount; i++)
+            {
+                if (next[i] != to)
+                {
+                    next[w] = next[i];
+                    nextCounts[w] = nextCounts[i];
+                    w++;
+                }
+            }
+            for (int i = w; i < edgeCount; i++)
+            {
+                next[i] = null;
+                nextCounts[i] = 0;
+            }
+            edgeCount = w;
+        }
+
+        private void bubbleUp(int i)
+        {
+            while (i > 0 && nextCounts[i] > nextCounts[i - 1])
+            {
+                Node n = next[i];
+                next[i] = next[i - 1];
+                next[i - 1] = n;
+
+                int c = nextCounts[i];
+                nextCounts[i] = nextCounts[i - 1];
+                nextCounts[i - 1] = c;
+                i--;
+            }
+        }
+    }
+
+    /**
+     * Record the dialog now on screen and return its likely successors.
+     *
+     * Repeated calls with the same screen (e.g. only the bounds changed) do not add edges.
+     * An empty snapshot ends the conversation, so the next screen starts without a parent.
+     *
+     * @return up to MAX_EDGES predicted next screens, most likely first
+     */
+    List<Node> observe(DialogSnapshot snapshot)
+    {
+        String key = keyOf(snapshot);
+        if (key.isEmpty())
+        {
+            current = null;
+            return Collections.emptyList();
+        }
+
+        if (current != null && current.key.equals(key))
+        {
+            return Collections.emptyList();
+        }
+
+        Node node = nodes.get(key);
+        if (node == null)
+        {
+            if (nodes.size() >= MAX_NODES)
+            {
+                evictLeastUsed();
+            }
+            node = new Node(key, snapshot.getSpeaker(), snapshot.getText(), snapshot.getOptions(), 0);
+            nodes.put(key, node);
+        }
+
+        node.hits++;
+        if (current != null)
+        {
+            current.addEdge(node, 1);
+        }
+        current = node;
+        persistDirty = true;
+
+        if (node.hits >= AGE_THRESHOLD)
+        {
+            age();
+        }
+
+        if (node.edgeCount == 0)
+        {
+            return Collections.emptyList();
+        }
+
+        List<Node> out = new ArrayList<>(node.edgeCount);
+        for (int i = 0; i < node.edgeCount; i++)
+        {
+            out.add(node.next[i]);
+        }
+        return out;
+    }
+
+    int size()
+    {
+        return nodes.size();
+    }
+
+    void load()
+    {
+        nodes.clear();
+        current = null;
+        persistDirty = false;
+
+        String raw = configManager.getConfiguration("accessibilityplus", CONFIG_KEY);
+        if (raw == null || raw.isEmpty())
+        {
+            return;
+        }
+
+        // Format: speaker:text:options:hits:edges;... with the strings base64 encoded,
+        // options joined by '\n' and edges as index.count,index.count
+        String[] parts = raw.split(";");
+        List<Node> byIndex = new ArrayList<>(parts.length);
+        List<String> edgeFields = new ArrayList<>(parts.length);
+
+        for (String part : parts)
+        {
+            String[] f = part.split(":", -1);
+            if (f.length != 5 || nodes.size() >= MAX_NODES)
+            {
+                byIndex.add(null);
+                edgeFields.add("");
+                continue;
+            }
+
+            try
+            {
+                String speaker = decode(f[0]);
+                String text = decode(f[1]);
+                String joined = decode(f[2]);
+                List<String> options = joined.isEmpty()
+                    ? Collections.emptyList()
+                    : Collections.unmodifiableList(new ArrayList<>(Arrays.asList(joined.split("\n"))));
+                int hits = Math.max(1, Integer.parseInt(f[3]));
+
+                String key = keyOf(speaker, text, options);
+                Node node = key.isEmpty() || nodes.containsKey(key) ? null : new Node(key, speaker, text, options, hits);
+                if (node != null)
+                {
+                    nodes.put(key, node);
+                }
+                byIndex.add(node);
+                edgeFields.add(f[4]);
+            }
+            catch (IllegalArgumentException e)
+            {
+                log.debug("Ignoring malformed conversation node: {}", part);
+                byIndex.add(null);
+                edgeFields.add("");
+            }
+        }
+
+        for (int i = 0; i < byIndex.size(); i++)
+        {
+            Node from = byIndex.get(i);
+            String edges = edgeFields.get(i);
+            if (from == null || edges.isEmpty())
+            {
+                continue;
+            }
+
+            for (String e : edges.split(","))
+            {
+                int dot = e.indexOf('.');
+                if (dot <= 0)
+                {
+                    continue;
+                }
+
+                try
+                {
+                    int to = Integer.parseInt(e.substring(0, dot));
+                    int count = Math.max(1, Integer.parseInt(e.substring(dot + 1)));
+                    if (to >= 0 && to < byIndex.size() && byIndex.get(to) != null)
+                    {
+                        from.addEdge(byIndex.get(to), count);
+                    }
+                }
+                catch (NumberFormatException ex)
+                {
+                    log.debug("Ignoring malformed conversation edge: {}", e);
+                }
+            }
+        }
+    }
+
+    void save()
+    {
+        if (!persistDirty)
+        {
+            return;
+        }
+
+        Map<Node, Integer> index = new HashMap<>();
+        for (Node n : nodes.values())
+        {
+            index.put(n, index.size());
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (Node n : nodes.values())
+        {
+            if (sb.length() > 0)
+            {
+                sb.append(';');
+            }
+            sb.append(encode(n.speaker)).append(':')
+                .append(encode(n.text)).append(':')
+                .append(encode(String.join("\n", n.options))).append(':')
+                .append(n.hits).append(':');
+
+            for (int i = 0; i < n.edgeCount; i++)
+            {
+                if (i > 0)
+                {
+                    sb.append(',');
+                }
+                sb.append(index.get(n.next[i])).append('.').append(n.nextCounts[i]);
+            }
+        }
+
+        configManager.setConfiguration("accessibilityplus", CONFIG_KEY, sb.toString());
+        persistDirty = false;
+    }
+
+    private static String keyOf(DialogSnapshot s)
+    {
+        if (!s.getDialogKey().isEmpty())
+        {
+            return s.getDialogKey();
+        }
+        return s.getOptionsKey().isEmpty() ? "" : "?" + s.getOptionsKey();
+    }
+
+    private static String keyOf(String speaker, String text, List<String> options)
+    {
+        return keyOf(DialogSnapshot.EMPTY.next(speaker, text, options, null));
+    }
+
+    private void age()
+    {
+        for (Node n : nodes.values())
+        {
+            n.hits = Math.max(1, n.hits / 2);
+            for (int i = 0; i < n.edgeCount; i++)
+            {
+                n.nextCounts[i] = Math.max(1, n.nextCounts[i] / 2);
+            }
+        }
+    }
+
+    private void evictLeastUsed()
+    {
+        Node worst = null;
+        for (Node n : nodes.values())
+        {
+            if (n != current && (worst == null || n.hits < worst.hits))
+            {
+                worst = n;
+            }
+        }
+
+        if (worst == null)
+        {
+            return;
+        }
+
+        nodes.remove(worst.key);
+        for (Node n : nodes.values())
+        {
+            n.removeEdgesTo(worst);
+        }
+    }
+
+    private static String encode(String s)
+    {
+        return Base64.getEncoder().encodeToString(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String s)
+    {
+        return new String(Base64.getDecoder().decode(s), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,455 @@
+package com.accessibilityplus;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.awt.geom.RoundRectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Everything DialogTextOverlay needs to draw one dialog: fonts, wrapped lines, row
+ * geometry and the panel shapes.
+ *
+ * Built once per (dialog content, font, font size, auto-fit, panel width, wrap mode, clip, render context,
+ * scale) and reused until one of those changes, so a steady-state frame does no font derivation and
+ * no text measurement at all. Option rows keep cumulative offsets, so finding the rows that
+ * fit the viewport from any first row is a binary search however long the list is. Immutable.
+ *
+ * A layout at scale s is in device pixels: sizes, paddings and the widget bounds are the
+ * 100% values times s, rounded to whole pixels, so text and edges land on the pixel grid
+ * instead of being resampled by the Graphics2D transform.
+ */
+final class DialogLayout
+{
+    // Sizes at 100% scale; a layout uses them multiplied by its scale.
+    static final int PAD = 16;
+    static final int ROW_PAD_Y = 10;     // vertical padding inside each row
+    static final int ROW_PAD_X = 12;     // horizontal padding inside each row
+    static final int WRAP_GAP = 2;       // extra gap between wrapped lines inside a row (OSRS feel)
+    static final int ROW_GAP_TOP = 8;    // gap between dialog text and first option row
+    static final int MAX_VISIBLE_ROWS = 5; // as many as the native chatbox shows; the rest scroll
+    static final int MIN_FONT_SIZE = 12;
+    static final int CORNER_ARC = 12;
+    static final int SCROLLBAR_W = 4;
+
+    /**
+     * One wrapped line. Lines containing colored runs carry a prebuilt TextLayout; all
+     * others are drawn with plain drawString.
+     */
+    static final class Line
+    {
+        final String text;
+        final TextLayout layout; // null when uncolored
+
+        private Line(String text, TextLayout layout)
+        {
+            this.text = text;
+            this.layout = layout;
+        }
+    }
+
+    static final class Row
+    {
+        final List<Line> lines;
+        final int height;
+
+        private Row(List<Line> lines, int height)
+        {
+            this.lines = lines;
+            this.height = height;
+        }
+    }
+
+    // Key
+    private final long version;
+    private final Font baseFont;
+    private final int fontSize;        // requested size; the largest size tried when auto-fitting
+    private final boolean autoFit;
+    private final int panelWidth;
+    private final AccessibilityPlusConfig.WrapMode wrapMode;
+    private final Rectangle clip;
+    private final FontRenderContext frc;
+    final double scale;
+
+    // Paddings at this layout's scale
+    final int pad;
+    final int rowPadX;
+    final int rowPadY;
+    final int wrapGap;
+    final int scrollbarW;
+
+    // Geometry
+    final Rectangle bounds;   // native dialog area (grown), covered when hiding the native dialog
+    final int x;
+    final int y;
+    final int width;
+    final int height;
+    final RoundRectangle2D panel;
+    final RoundRectangle2D innerPanel;
+
+    final Font dialogFont;
+    final Font optionFont;
+    final int dialogLineH;
+    final int optionLineH;
+
+    final boolean hasSpeaker;      // first dialog line is the speaker
+    final List<Line> dialogLines;
+    final List<Row> rows;
+
+    // Option viewport: rows are shown from a first row down to whatever fits above the bottom pad.
+    final int optionsTop;          // y of the first shown row
+    final int viewportH;           // height available for rows, may be <= 0
+    private final int[] rowTops;   // rowTops[i] = offset of row i from the first row, dividers included
+    final int maxFirstRow;         // smallest first row that shows the last row
+
+    final boolean fits;            // nothing is cut off; only lists over MAX_VISIBLE_ROWS scroll
+
+    private DialogLayout(long version, Font baseFont, int fontSize, boolean autoFit, int panelWidth,
+        AccessibilityPlusConfig.WrapMode wrapMode, Rectangle clip, FontRenderContext frc, double scale,
+        Rectangle bounds, int x, int y, int width, int height, Font dialogFont, Font optionFont, int dialogLineH,
+        int optionLineH, boolean hasSpeaker, List<Line> dialogLines, List<Row> rows, int optionsTop, int viewportH,
+        int[] rowTops, boolean fits)
+    {
+        this.version = version;
+        this.baseFont = baseFont;
+        this.fontSize = fontSize;
+        this.autoFit = autoFit;
+        this.panelWidth = panelWidth;
+        this.wrapMode = wrapMode;
+        this.clip = clip;
+        this.frc = frc;
+        this.scale = scale;
+        this.pad = scaled(PAD, scale);
+        this.rowPadX = scaled(ROW_PAD_X, scale);
+        this.rowPadY = scaled(ROW_PAD_Y, scale);
+        this.wrapGap = scaled(WRAP_GAP, scale);
+        this.scrollbarW = scaled(SCROLLBAR_W, scale);
+        this.bounds = bounds;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+        int arc = scaled(CORNER_ARC, scale);
+        this.panel = new RoundRectangle2D.Double(x, y, width, height, arc, arc);
+        this.innerPanel = new RoundRectangle2D.Double(x + 1, y + 1, width - 2, height - 2, arc, arc);
+        this.dialogFont = dialogFont;
+        this.optionFont = optionFont;
+        this.dialogLineH = dialogLineH;
+        this.optionLineH = optionLineH;
+        this.hasSpeaker = hasSpeaker;
+        this.dialogLines = dialogLines;
+        this.rows = rows;
+        this.optionsTop = optionsTop;
+        this.viewportH = viewportH;
+        this.rowTops = rowTops;
+        this.maxFirstRow = findMaxFirstRow();
+        this.fits = fits;
+    }
+
+    /**
+     * @return the end (exclusive) of the rows that fit in the viewport starting at first
+     */
+    int visibleEnd(int first)
+    {
+        // Rows [first, end) take rowTops[end] - rowTops[first] - 1; the last divider is not drawn.
+        int limit = rowTops[first] + viewportH + 1;
+        int lo = first;
+        int hi = rows.size();
+        while (lo < hi)
+        {
+            int mid = (lo + hi + 1) >>> 1;
+            if (rowTops[mid] <= limit)
+            {
+                lo = mid;
+            }
+            else
+            {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Offset of row i from the first row, for the scrollbar.
+     */
+    int rowTop(int i)
+    {
+        return rowTops[i];
+    }
+
+    private int findMaxFirstRow()
+    {
+        int n = rows.size();
+        int lo = 0;
+        int hi = n;
+        while (lo < hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            if (rowTops[n] - rowTops[mid] - 1 <= viewportH)
+            {
+                hi = mid;
+            }
+            else
+            {
+                lo = mid + 1;
+            }
+        }
+        return Math.min(lo, Math.max(0, n - 1));
+    }
+
+    /**
+     * @return a size at 100% scale converted to whole pixels at scale, at least 1 if size is
+     */
+    static int scaled(int size, double scale)
+    {
+        return size == 0 ? 0 : Math.max(1, (int) Math.round(size * scale));
+    }
+
+    boolean matches(DialogSnapshot snapshot, Font base, int fontSize, boolean autoFit, int panelWidth,
+        AccessibilityPlusConfig.WrapMode wrapMode, Rectangle clip, FontRenderContext frc, double scale)
+    {
+        return version == snapshot.getVersion()
+            && this.scale == scale
+            && this.fontSize == fontSize
+            && this.autoFit == autoFit
+            && this.panelWidth == panelWidth
+            && this.wrapMode == wrapMode
+            && baseFont.equals(base)
+            && Objects.equals(this.clip, clip)
+            && this.frc.equals(frc);
+    }
+
+    /**
+     * @return the layout, or null if there is nowhere to draw
+     */
+    static DialogLayout build(Graphics2D g, DialogSnapshot snapshot, int fontSize, int panelWidth,
+        AccessibilityPlusConfig.WrapMode wrapMode, Rectangle clip, double scale)
+    {
+        return build(g, snapshot, fontSize, false, fontSize, panelWidth, wrapMode, clip, scale);
+    }
+
+    /**
+     * Layout at the largest size from MIN_FONT_SIZE to maxSize at which the dialog and the
+     * option viewport (every option, up to MAX_VISIBLE_ROWS) fit the panel, found by binary
+     * search; MIN_FONT_SIZE if nothing fits.
+     *
+     * Each probe is a full layout, but the text measurement behind it is memoized per
+     * (text, font) by LineBreaks, and the caller only searches again when the layout key
+     * changes, so steady-state frames never probe.
+     *
+     * @return the layout, or null if there is nowhere to draw
+     */
+    static DialogLayout fit(Graphics2D g, DialogSnapshot snapshot, int maxSize, int panelWidth,
+        AccessibilityPlusConfig.WrapMode wrapMode, Rectangle clip, double scale)
+    {
+        DialogLayout best = build(g, snapshot, maxSize, true, maxSize, panelWidth, wrapMode, clip, scale);
+        if (best == null || best.fits || maxSize <= MIN_FONT_SIZE)
+        {
+            return best;
+        }
+
+        // maxSize does not fit; find the largest size below it that does.
+        DialogLayout fitting = null;
+        int lo = MIN_FONT_SIZE;
+        int hi = maxSize - 1;
+        while (lo <= hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            DialogLayout probe = build(g, snapshot, maxSize, true, mid, panelWidth, wrapMode, clip, scale);
+            if (probe.fits)
+            {
+                fitting = probe;
+                lo = mid + 1;
+            }
+            else
+            {
+                hi = mid - 1;
+            }
+        }
+        return fitting != null
+            ? fitting
+            : build(g, snapshot, maxSize, true, MIN_FONT_SIZE, panelWidth, wrapMode, clip, scale);
+    }
+
+    /**
+     * The clip is in device pixels already; the widget bounds are in canvas coordinates and
+     * get scaled here.
+     */
+    private static DialogLayout build(Graphics2D g, DialogSnapshot snapshot, int keySize, boolean autoFit, int fontSize,
+        int panelWidth, AccessibilityPlusConfig.WrapMode wrapMode, Rectangle clip, double scale)
+    {
+        Rectangle bounds = snapshot.getBounds();
+        if (bounds != null && scale != 1.0)
+        {
+            // Outward to whole pixels so the backdrop still covers the native dialog.
+            int x0 = (int) Math.floor(bounds.x * scale);
+            int y0 = (int) Math.floor(bounds.y * scale);
+            int x1 = (int) Math.ceil((bounds.x + bounds.width) * scale);
+            int y1 = (int) Math.ceil((bounds.y + bounds.height) * scale);
+            bounds = new Rectangle(x0, y0, x1 - x0, y1 - y0);
+        }
+        if (bounds == null)
+        {
+            bounds = clip == null ? null : new Rectangle(clip);
+        }
+        if (bounds == null)
+        {
+            return null;
+        }
+
+        final int pad = scaled(PAD, scale);
+        final int rowPadY = scaled(ROW_PAD_Y, scale);
+        final int wrapGap = scaled(WRAP_GAP, scale);
+        final int rowGapTop = scaled(ROW_GAP_TOP, scale);
+
+        // Expand a bit so we cover the full native dialog area
+        int grow = scaled(8, scale);
+        bounds.grow(grow, grow);
+
+        int width = Math.min(scaled(panelWidth, scale), bounds.width);
+        int x = bounds.x + (bounds.width - width) / 2;
+        int innerW = Math.max(scaled(160, scale), width - pad * 2);
+
+        Font base = g.getFont();
+        Font dialogFont = base.deriveFont((float) (fontSize * scale));
+        Font optionFont = base.deriveFont((float) (Math.max(MIN_FONT_SIZE, fontSize - 2) * scale));
+        FontMetrics dfm = g.getFontMetrics(dialogFont);
+        FontMetrics ofm = g.getFontMetrics(optionFont);
+        FontRenderContext frc = g.getFontRenderContext();
+
+        // Wrapped (and for colored text, laid out) lines for the current dialog only
+        List<Line> dialogLines = new ArrayList<>();
+        String speaker = snapshot.getSpeaker();
+        boolean hasSpeaker = !speaker.isBlank();
+        if (hasSpeaker)
+        {
+            dialogLines.add(new Line(speaker.trim(), null));
+        }
+        if (!snapshot.getText().isBlank())
+        {
+            wrapStyled(snapshot.getStyledText(), dfm, innerW, wrapMode, frc, dialogLines);
+        }
+
+        int dialogLineH = dfm.getHeight();
+        int optionLineH = ofm.getHeight();
+
+        List<Row> rows = new ArrayList<>(snapshot.getOptions().size());
+        int idx = 1;
+        for (StyledText opt : snapshot.getStyledOptions())
+        {
+            List<Line> lines = new ArrayList<>(2);
+            wrapStyled(opt.prefixed(idx + ". "), ofm, innerW, wrapMode, frc, lines);
+
+            int linesCount = Math.max(1, lines.size());
+            int rowTextH = (linesCount * optionLineH) + ((linesCount - 1) * wrapGap);
+            rows.add(new Row(Collections.unmodifiableList(lines), (rowPadY * 2) + rowTextH));
+            idx++;
+        }
+
+        int contentH = pad * 2;
+
+        // Dialog area
+        contentH += dialogLines.size() * dialogLineH;
+
+        // Options rows, with a 1px divider between rows
+        int[] rowTops = new int[rows.size() + 1];
+        for (int i = 0; i < rows.size(); i++)
+        {
+            rowTops[i + 1] = rowTops[i] + rows.get(i).height + 1;
+        }
+        // The viewport never grows past MAX_VISIBLE_ROWS rows, so a long teleport or make-X
+        // list pages instead of covering the game view.
+        if (!rows.isEmpty())
+        {
+            contentH += rowGapTop + rowTops[Math.min(rows.size(), MAX_VISIBLE_ROWS)] - 1;
+        }
+
+        // Allow the overlay to grow beyond the native dialog widget height.
+        int maxH = bounds.height;
+        if (clip != null)
+        {
+            maxH = Math.max(0, clip.height - scaled(8, scale));
+        }
+        int height = Math.min(contentH, maxH);
+
+        // Anchor to bottom and grow upward
+        int y = bounds.y + bounds.height - height;
+        if (clip != null)
+        {
+            int margin = scaled(4, scale);
+            int minY = clip.y + margin;
+            int maxY = (clip.y + clip.height) - height - margin;
+            if (y < minY)
+            {
+                y = minY;
+            }
+            if (y > maxY)
+            {
+                y = maxY;
+            }
+        }
+
+        int optionsTop = y + pad + dialogLines.size() * dialogLineH + rowGapTop;
+        int viewportH = (y + height - pad) - optionsTop;
+
+        return new DialogLayout(
+            snapshot.getVersion(), base, keySize, autoFit, panelWidth, wrapMode, clip == null ? null : new Rectangle(clip), frc,
+            scale, bounds, x, y, width, height, dialogFont, optionFont, dialogLineH, optionLineH, hasSpeaker,
+            Collections.unmodifiableList(dialogLines), Collections.unmodifiableList(rows), optionsTop, viewportH, rowTops,
+            contentH <= maxH);
+    }
+
+    /**
+     * Wrap each &lt;br&gt; separated paragraph with TextWrapUtil, then give lines that contain
+     * colored runs a TextLayout built from the matching slice of the styled text.
+     */
+    private static void wrapStyled(StyledText st, FontMetrics fm, int width, AccessibilityPlusConfig.WrapMode wrapMode,
+        FontRenderContext frc, List<Line> out)
+    {
+        String text = st.getText();
+        if (st.isPlain())
+        {
+            for (String l : TextWrapUtil.wrap(fm, text, width, wrapMode))
+            {
+                out.add(new Line(l, null));
+            }
+            return;
+        }
+
+        int[] breaks = st.breaks();
+        int start = 0;
+        for (int b = 0; b <= breaks.length; b++)
+        {
+            int end = b < breaks.length ? breaks[b] : text.length();
+
+            // Clean text has single spaces, so wrapped lines are consecutive slices of it.
+            int pos = start;
+            for (String l : TextWrapUtil.wrap(fm, text.substring(start, end), width, wrapMode))
+            {
+                TextLayout layout = null;
+                if (text.startsWith(l, pos))
+                {
+                    if (st.hasColor(pos, pos + l.length()))
+                    {
+                        layout = new TextLayout(st.attributed(pos, pos + l.length(), fm.getFont()).getIterator(), frc);
+                    }
+                    pos += l.length();
+                    if (pos < end && text.charAt(pos) == ' ')
+                    {
+                        pos++;
+                    }
+                }
+                out.add(new Line(l, layout));
+            }
+
+            start = end + 1;
+        }
+    }
+}
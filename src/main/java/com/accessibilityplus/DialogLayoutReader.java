@@ -0,0 +1,287 @@
+package com.accessibilityplus;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.inject.Inject;
+import net.runelite.api.Client;
+import net.runelite.api.widgets.ComponentID;
+import net.runelite.api.widgets.InterfaceID;
+import net.runelite.api.widgets.Widget;
+
+/**
+ * Structural fast path for the standard chatbox dialogs.
+ *
+ * Reads speaker, text and options straight from the known components of the option, NPC,
+ * player and sprite dialog interfaces. Cost is a handful of widget lookups plus one pass
+ * over the option children, and nothing outside those components (chat tabs, timers, chat
+ * lines) can ever be picked up as an option.
+ *
+ * Anything else falls back to the heuristic scan in AccessibilityPlusPlugin.
+ */
+class DialogLayoutReader
+{
+    private final Client client;
+
+    // Result of the last read and the fingerprint of the components it came from.
+    private long lastFingerprint;
+    private KnownDialog last;
+    private boolean hasLast = false;
+
+    @Inject
+    DialogLayoutReader(Client client)
+    {
+        this.client = client;
+    }
+
+    static boolean isKnownGroup(int group)
+    {
+        return group == InterfaceID.DIALOG_OPTION
+            || group == InterfaceID.DIALOG_NPC
+            || group == InterfaceID.DIALOG_PLAYER
+            || group == InterfaceID.DIALOG_SPRITE;
+    }
+
+    /**
+     * Read whichever standard dialog is open.
+     *
+     * @return the dialog, or null when none of the known interfaces is visible
+     */
+    KnownDialog read()
+    {
+        // Skip cleaning and rebuilding when none of the source components changed.
+        long fp = fingerprint();
+        if (hasLast && fp == lastFingerprint)
+        {
+            return last;
+        }
+
+        last = readUncached();
+        lastFingerprint = fp;
+        hasLast = true;
+        return last;
+    }
+
+    /**
+     * Cheap per-frame check: hashes the known components and their ancestors' layout
+     * without cleaning or allocating.
+     *
+     * @return true if read() would produce a different result than last time
+     */
+    boolean isStale()
+    {
+        return !hasLast || fingerprint() != lastFingerprint;
+    }
+
+    void invalidate()
+    {
+        hasLast = false;
+        last = null;
+    }
+
+    private KnownDialog readUncached()
+    {
+        Widget optionList = visible(ComponentID.DIALOG_OPTION_OPTIONS);
+        if (optionList != null)
+        {
+            return readOptions(optionList);
+        }
+
+        Widget npcText = visible(ComponentID.DIALOG_NPC_TEXT);
+        if (npcText != null && !isBlank(npcText.getText()))
+        {
+            Widget npcName = visible(ComponentID.DIALOG_NPC_NAME);
+            Rectangle bounds = union(null, npcText);
+            bounds = union(bounds, npcName);
+            return new KnownDialog(
+                npcName == null ? "" : AccessibilityPlusPlugin.clean(npcName.getText()),
+                styled(npcText.getText()),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                bounds);
+        }
+
+        Widget playerText = visible(ComponentID.DIALOG_PLAYER_TEXT);
+        if (playerText != null && !isBlank(playerText.getText()))
+        {
+            return new KnownDialog(
+                "You",
+                styled(playerText.getText()),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                union(null, playerText));
+        }
+
+        Widget spriteText = visible(ComponentID.DIALOG_SPRITE_TEXT);
+        if (spriteText != null && !isBlank(spriteText.getText()))
+        {
+            return new KnownDialog(
+                "",
+                styled(spriteText.getText()),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                union(null, spriteText));
+        }
+
+        return null;
+    }
+
+    // Option menu: child 0 of the list is the header, the options follow.
+    private KnownDialog readOptions(Widget optionList)
+    {
+        Widget[] children = optionList.getChildren();
+        if (children == null || children.length == 0)
+        {
+            return null;
+        }
+
+        // Header ("Select an Option" or a quest-specific prompt) anchors the bounds.
+        Rectangle bounds = union(null, children[0]);
+
+        List<String> options = new ArrayList<>(children.length - 1);
+        List<StyledText> styledOptions = new ArrayList<>(children.length - 1);
+        for (int i = 1; i < children.length; i++)
+        {
+            Widget c = children[i];
+            if (c == null || c.isHidden())
+            {
+                continue;
+            }
+
+            String raw = c.getText();
+            String t = AccessibilityPlusPlugin.clean(raw);
+            if (t.isEmpty())
+            {
+                continue;
+            }
+
+            options.add(t);
+            styledOptions.add(styled(raw, t));
+            bounds = union(bounds, c);
+        }
+
+        if (options.isEmpty())
+        {
+            return null;
+        }
+
+        return new KnownDialog("", StyledText.plain(""), options, styledOptions, bounds);
+    }
+
+    private long fingerprint()
+    {
+        long h = 17;
+        h = 31 * h + client.getCanvasWidth();
+        h = 31 * h + client.getCanvasHeight();
+        h = fingerprint(h, client.getWidget(ComponentID.DIALOG_OPTION_OPTIONS));
+        h = fingerprint(h, client.getWidget(ComponentID.DIALOG_NPC_TEXT));
+        h = fingerprint(h, client.getWidget(ComponentID.DIALOG_NPC_NAME));
+        h = fingerprint(h, client.getWidget(ComponentID.DIALOG_PLAYER_TEXT));
+        h = fingerprint(h, client.getWidget(ComponentID.DIALOG_SPRITE_TEXT));
+        return h;
+    }
+
+    private static long fingerprint(long h, Widget w)
+    {
+        if (w == null)
+        {
+            return 31 * h;
+        }
+        if (w.isHidden())
+        {
+            return 31 * h + 1;
+        }
+
+        String t = w.getText();
+        h = 31 * h + (t == null ? 0 : t.hashCode());
+
+        // Canvas bounds follow from the layout of w and its ancestors; reading those fields
+        // allocates nothing, unlike getBounds().
+        for (Widget p = w; p != null; p = p.getParent())
+        {
+            h = 31 * h + p.getRelativeX();
+            h = 31 * h + p.getRelativeY();
+            h = 31 * h + p.getWidth();
+            h = 31 * h + p.getHeight();
+        }
+
+        Widget[] children = w.getChildren();
+        if (children != null)
+        {
+            h = 31 * h + children.length;
+            for (Widget c : children)
+            {
+                if (c == null)
+                {
+                    h = 31 * h;
+                    continue;
+                }
+                String ct = c.getText();
+                h = 31 * h + (c.isHidden() ? 1 : 2);
+                h = 31 * h + (ct == null ? 0 : ct.hashCode());
+                h = 31 * h + c.getRelativeY();
+            }
+        }
+        return h;
+    }
+
+    private static StyledText styled(String raw)
+    {
+        return styled(raw, AccessibilityPlusPlugin.clean(raw));
+    }
+
+    /**
+     * Color runs and breaks only exist where there are tags; skip the parse otherwise.
+     */
+    private static StyledText styled(String raw, String clean)
+    {
+        return raw == null || raw.indexOf('<') < 0 ? StyledText.plain(clean) : StyledText.parse(raw);
+    }
+
+    private Widget visible(int componentId)
+    {
+        Widget w = client.getWidget(componentId);
+        return w == null || w.isHidden() ? null : w;
+    }
+
+    private static Rectangle union(Rectangle acc, Widget w)
+    {
+        if (w == null)
+        {
+            return acc;
+        }
+        Rectangle b = w.getBounds();
+        if (b == null)
+        {
+            return acc;
+        }
+        return acc == null ? new Rectangle(b) : acc.union(b);
+    }
+
+    private static boolean isBlank(String s)
+    {
+        return s == null || s.trim().isEmpty();
+    }
+
+    static final class KnownDialog
+    {
+        final String speaker;
+        final String text;
+        final StyledText styledText;
+        final List<String> options;
+        final List<StyledText> styledOptions; // parallel to options
+        final Rectangle bounds; // may be null
+
+        private KnownDialog(String speaker, StyledText styledText, List<String> options,
+            List<StyledText> styledOptions, Rectangle bounds)
+        {
+            this.speaker = speaker;
+            this.text = styledText.getText();
+            this.styledText = styledText;
+            this.options = options;
+            this.styledOptions = styledOptions;
+            this.bounds = bounds;
+        }
+    }
+}
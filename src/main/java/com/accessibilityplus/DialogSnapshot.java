@@ -0,0 +1,158 @@
+package com.accessibilityplus;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import lombok.Getter;
+
+/**
+ * Immutable view of the dialog on screen, published by the plugin on the client thread and
+ * read by the overlay (render thread) and TTS without locking.
+ *
+ * Every published snapshot with different content gets a higher version, so consumers can
+ * compare versions to skip work instead of rebuilding strings every tick or frame.
+ * The TTS de-dupe keys are computed once here rather than by each consumer.
+ */
+public final class DialogSnapshot
+{
+    public static final DialogSnapshot EMPTY = new DialogSnapshot(
+        0L, "", StyledText.plain(""), Collections.emptyList(), Collections.emptyList(), null);
+
+    @Getter
+    private final long version;
+
+    @Getter
+    private final String speaker;
+
+    @Getter
+    private final String text;
+
+    @Getter
+    private final List<String> options;
+
+    // Same content as text / options with color runs and <br> breaks, for rendering.
+    @Getter
+    private final StyledText styledText;
+
+    @Getter
+    private final List<StyledText> styledOptions;
+
+    // "speaker|text", empty when there is no text
+    @Getter
+    private final String dialogKey;
+
+    // "option|option|...|", empty when there are no options
+    @Getter
+    private final String optionsKey;
+
+    // Not exposed directly: Rectangle is mutable.
+    private final Rectangle bounds;
+
+    private DialogSnapshot(long version, String speaker, StyledText styledText, List<String> options,
+        List<StyledText> styledOptions, Rectangle bounds)
+    {
+        this.version = version;
+        this.speaker = speaker;
+        this.text = styledText.getText();
+        this.styledText = styledText;
+        this.options = options;
+        this.styledOptions = styledOptions;
+        this.bounds = bounds;
+        this.dialogKey = buildDialogKey(speaker, text);
+        this.optionsKey = buildOptionsKey(options);
+    }
+
+    /**
+     * next() for unstyled content.
+     */
+    DialogSnapshot next(String speaker, String text, List<String> options, Rectangle bounds)
+    {
+        return next(speaker, StyledText.plain(text), options, Collections.emptyList(), bounds);
+    }
+
+    /**
+     * The next snapshot for this content: this one if nothing changed, otherwise a copy with
+     * version + 1.
+     *
+     * @param styledOptions styled form of options, same size; empty if the options are unstyled
+     */
+    DialogSnapshot next(String speaker, StyledText styledText, List<String> options,
+        List<StyledText> styledOptions, Rectangle bounds)
+    {
+        String s = speaker == null ? "" : speaker;
+        List<StyledText> so = styledOptions.size() == options.size() ? styledOptions : plain(options);
+
+        if (s.equals(this.speaker) && styledText.equals(this.styledText) && options.equals(this.options)
+            && so.equals(this.styledOptions) && Objects.equals(bounds, this.bounds))
+        {
+            return this;
+        }
+
+        return new DialogSnapshot(
+            version + 1,
+            s,
+            styledText,
+            copy(options),
+            copy(so),
+            bounds == null ? null : new Rectangle(bounds));
+    }
+
+    public boolean isEmpty()
+    {
+        return text.isEmpty() && options.isEmpty();
+    }
+
+    /**
+     * @return a copy of the native dialog bounds, or null if unknown
+     */
+    public Rectangle getBounds()
+    {
+        return bounds == null ? null : new Rectangle(bounds);
+    }
+
+    private static List<StyledText> plain(List<String> options)
+    {
+        List<StyledText> out = new ArrayList<>(options.size());
+        for (String o : options)
+        {
+            out.add(StyledText.plain(o));
+        }
+        return out;
+    }
+
+    private static <T> List<T> copy(List<T> list)
+    {
+        return list.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(list));
+    }
+
+    private static String buildDialogKey(String speaker, String text)
+    {
+        String t = text.trim();
+        if (t.isEmpty())
+        {
+            return "";
+        }
+        return speaker.trim() + "|" + t;
+    }
+
+    private static String buildOptionsKey(List<String> options)
+    {
+        if (options.isEmpty())
+        {
+            return "";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String o : options)
+        {
+            if (o != null)
+            {
+                sb.append(o.trim());
+            }
+            sb.append('|');
+        }
+        return sb.toString();
+    }
+}
@@ -1,16 +1,15 @@
 package com.accessibilityplus;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.FontMetrics;
-import java.awt.GradientPaint;
 import java.awt.Graphics2D;
-import java.awt.Paint;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
-import java.awt.geom.RoundRectangle2D;
-import java.util.ArrayList;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.util.List;
 import javax.inject.Inject;
 import net.runelite.client.ui.overlay.Overlay;
@@ -25,17 +24,51 @@ import net.runelite.client.ui.overlay.OverlayPosition;
  *  - Response options (as large blocks)
  *
  * Optionally draws an opaque backdrop over the native dialog widgets.
+ *
+ * By default the panel is painted into an image whenever the dialog, clip, fonts or style
+ * change, and the frames in between only copy that image to the screen.
+ *
+ * When the Graphics2D transform is a uniform scale (OS display scaling), the panel is laid
+ * out and painted in device pixels with the transform reduced to its translation, so text
+ * and edges are drawn at the screen's resolution rather than scaled up afterwards. The
+ * layout and the pre-rendered image are both keyed by that scale.
+ *
+ * Render time is reported to RenderQuality, whose level drops the text shadow, then the
+ * gradient and rounded corners, then text antialiasing when the overlays run over budget.
  */
 public class DialogTextOverlay extends Overlay
 {
     private final AccessibilityPlusPlugin plugin;
     private final AccessibilityPlusConfig config;
+    private final OverlayStyles styles;
+    private final OptionViewport viewport;
+    private final RenderQuality quality;
+
+    // Last layout; only touched from the render thread.
+    private DialogLayout layout;
+
+    // Reused every frame so steady-state rendering allocates nothing; render thread only.
+    private final Rectangle clipBounds = new Rectangle();
+    private final AffineTransform deviceTransform = new AffineTransform();
+
+    // Pre-rendered panel and what it was painted from; only touched from the render thread.
+    private BufferedImage panelImage;
+    private Rectangle imageArea;
+    private DialogLayout imageLayout;
+    private int imageFirstRow;
+    private OverlayStyles.Palette imagePalette;
+    private boolean imageHideNative;
+    private RenderQuality.Level imageLevel;
 
     @Inject
-    public DialogTextOverlay(AccessibilityPlusPlugin plugin, AccessibilityPlusConfig config)
+    public DialogTextOverlay(AccessibilityPlusPlugin plugin, AccessibilityPlusConfig config, OverlayStyles styles,
+        OptionViewport viewport, RenderQuality quality)
     {
         this.plugin = plugin;
         this.config = config;
+        this.styles = styles;
+        this.viewport = viewport;
+        this.quality = quality;
 
         setPosition(OverlayPosition.DYNAMIC);
         setLayer(OverlayLayer.ABOVE_WIDGETS);
@@ -44,222 +77,253 @@ public class DialogTextOverlay extends Overlay
     @Override
     public Dimension render(Graphics2D g)
     {
-        if (!config.enableDialogOverlay())
+        long start = System.nanoTime();
+
+        // The render context's transform type tells whether g scales at all without copying
+        // its transform, so an unscaled frame leaves the transform alone.
+        if ((g.getFontRenderContext().getTransformType() & ~AffineTransform.TYPE_TRANSLATION) == 0)
         {
-            return null;
+            try
+            {
+                return renderPanel(g, 1.0);
+            }
+            finally
+            {
+                quality.record(System.nanoTime() - start);
+            }
         }
 
-        final String speaker = plugin.getSpeakerName();
-        final String line = plugin.getDialogText();
-        final List<String> options = plugin.getDialogOptions();
-        final Rectangle anchor = plugin.getDialogBounds();
+        final AffineTransform transform = g.getTransform();
+        final double scale = deviceScale(transform);
+        if (scale != 1.0)
+        {
+            deviceTransform.setToTranslation(transform.getTranslateX(), transform.getTranslateY());
+            g.setTransform(deviceTransform);
+        }
 
-        final boolean hasLine = line != null && !line.isBlank();
-        final boolean hasOptions = options != null && !options.isEmpty();
+        try
+        {
+            return renderPanel(g, scale);
+        }
+        finally
+        {
+            g.setTransform(transform);
+            quality.record(System.nanoTime() - start);
+        }
+    }
 
-        if (!hasLine && !hasOptions)
+    /**
+     * @param scale device pixels per unit of g's original user space; g is already in device
+     *              pixels (bar translation) when this is not 1
+     */
+    private Dimension renderPanel(Graphics2D g, double scale)
+    {
+        if (!config.enableDialogOverlay())
         {
+            viewport.hidden();
             return null;
         }
 
-        Rectangle bounds = anchor != null ? new Rectangle(anchor) : g.getClipBounds();
-        if (bounds == null)
+        // One volatile read; the snapshot cannot change under us while drawing.
+        final DialogSnapshot snapshot = plugin.getDialogSnapshot();
+        if (snapshot.isEmpty())
         {
+            viewport.hidden();
             return null;
         }
 
-        // Expand a bit so we cover the full native dialog area
-        bounds.grow(8, 8);
+        final Font base = g.getFont();
+        // No clip leaves the rectangle empty; treat that as no clip, like getClipBounds() did.
+        clipBounds.setBounds(0, 0, 0, 0);
+        final Rectangle clip = g.getClipBounds(clipBounds).isEmpty() ? null : clipBounds;
+
+        final RenderQuality.Level level = quality.getLevel();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, level.antialias()
+            ? RenderingHints.VALUE_TEXT_ANTIALIAS_ON
+            : RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+
+        // Reuse the last layout unless content, fonts, width, wrap mode, clip or scale changed.
+        // Auto-fit searches for a size only here, never on a frame that reuses the layout.
+        final int fontSize = config.dialogFontSize();
+        final int panelWidth = config.dialogPanelWidth();
+        final AccessibilityPlusConfig.WrapMode wrapMode = config.dialogWrapMode();
+        final boolean autoFit = config.autoFitText();
+        DialogLayout layout = this.layout;
+        if (layout == null
+            || !layout.matches(snapshot, base, fontSize, autoFit, panelWidth, wrapMode, clip, g.getFontRenderContext(), scale))
+        {
+            layout = autoFit
+                ? DialogLayout.fit(g, snapshot, fontSize, panelWidth, wrapMode, clip, scale)
+                : DialogLayout.build(g, snapshot, fontSize, panelWidth, wrapMode, clip, scale);
+            this.layout = layout;
+        }
+        if (layout == null)
+        {
+            viewport.hidden();
+            return null;
+        }
 
-        int width = Math.min(config.dialogPanelWidth(), bounds.width);
-        int pad = 16;
+        final Rectangle bounds = layout.bounds;
         int opacity = clamp(config.dialogOverlayOpacity(), 40, 255);
 
-        int x = bounds.x + (bounds.width - width) / 2;
-        int yTop = bounds.y;
-        int bottomAnchor = bounds.y + bounds.height;
-
-        Palette pal = paletteFor(config.dialogTheme(), x, yTop, bounds.height, opacity);
+        OverlayStyles.Palette pal = styles.palette(config.dialogTheme(), layout.x, bounds.y, bounds.height, opacity);
+        boolean hideNative = config.hideNativeDialog();
 
-        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        int firstRow = viewport.firstRow(snapshot, layout);
 
-        Font base = g.getFont();
-        Font dialogFont = base.deriveFont((float) config.dialogFontSize());
-        Font optFont = base.deriveFont((float) Math.max(12, config.dialogFontSize() - 2));
-
-        // Build wrapped lines for current dialog only
-        List<String> dialogLines = new ArrayList<>();
-        g.setFont(dialogFont);
-        FontMetrics dfm = g.getFontMetrics();
-        int innerW = Math.max(160, width - pad * 2);
-
-        if (speaker != null && !speaker.isBlank())
+        if (config.cachePanelImage())
         {
-            dialogLines.add(speaker.trim());
+            blitPanel(g, layout, firstRow, pal, hideNative, level);
         }
-
-        if (hasLine)
+        else
         {
-            dialogLines.addAll(TextWrapUtil.wrap(dfm, line.trim(), innerW));
+            panelImage = null;
+            paintPanel(g, layout, firstRow, pal, hideNative, level);
         }
 
-        // Wrap options as rows
-        List<List<String>> optionWrapped = new ArrayList<>();
-        if (hasOptions)
-        {
-            g.setFont(optFont);
-            FontMetrics ofm = g.getFontMetrics();
+        g.setFont(base);
+        return null;
+    }
 
-            int idx = 1;
-            for (String opt : options)
+    /**
+     * Copy the pre-rendered panel to the screen, painting it first if the layout (content,
+     * fonts, clip), the scroll position, the palette (theme, opacity) or the quality level
+     * changed since it was last painted.
+     */
+    private void blitPanel(Graphics2D g, DialogLayout layout, int firstRow, OverlayStyles.Palette pal, boolean hideNative,
+        RenderQuality.Level level)
+    {
+        if (layout != imageLayout || firstRow != imageFirstRow || pal != imagePalette || hideNative != imageHideNative
+            || level != imageLevel || panelImage == null)
+        {
+            // The outline is stroked on the right and bottom edges, hence the extra pixel.
+            Rectangle area = new Rectangle(layout.x, layout.y, layout.width + 1, layout.height + 1);
+            if (hideNative)
             {
-                String label = idx + ". " + opt;
-                optionWrapped.add(TextWrapUtil.wrap(ofm, label, innerW));
-                idx++;
+                area.add(layout.bounds);
             }
-        }
-
-        // Measure height
-        int dialogLineH = dfm.getHeight();
-        g.setFont(optFont);
-        FontMetrics ofm2 = g.getFontMetrics();
-        int optLineH = ofm2.getHeight();
-
-        // Row style (Option A: separators)
-        int rowPadY = 10;          // vertical padding inside each row
-        int rowPadX = 12;          // horizontal padding inside each row
-        int wrapGap = 2;           // extra gap between wrapped lines inside a row (OSRS feel)
-        int rowGapTop = 8;         // gap between dialog text and first option row
-
-        int contentH = pad * 2;
-
-        // Dialog area
-        contentH += dialogLines.size() * dialogLineH;
-
-        // Options rows
-        if (!optionWrapped.isEmpty())
-        {
-            contentH += rowGapTop;
-
-            for (List<String> rowLines : optionWrapped)
+            if (area.isEmpty())
             {
-                int linesCount = Math.max(1, rowLines.size());
-                int rowTextH = (linesCount * optLineH) + ((linesCount - 1) * wrapGap);
-                int rowH = (rowPadY * 2) + rowTextH;
-
-                contentH += rowH;
-
-                // Divider line between rows (1px)
-                contentH += 1;
+                return;
             }
 
-            // Remove divider after last row
-            contentH -= 1;
-        }
-
-        // Allow the overlay to grow beyond the native dialog widget height.
-        Rectangle clip = g.getClipBounds();
-        int maxH = bounds.height;
-        if (clip != null)
-        {
-            maxH = Math.max(0, clip.height - 8);
-        }
-        int height = Math.min(contentH, maxH);
+            BufferedImage img = panelImage;
+            if (img == null || img.getWidth() < area.width || img.getHeight() < area.height)
+            {
+                int w = Math.max(area.width, img == null ? 0 : img.getWidth());
+                int h = Math.max(area.height, img == null ? 0 : img.getHeight());
+                img = g.getDeviceConfiguration().createCompatibleImage(w, h, Transparency.TRANSLUCENT);
+            }
 
-        // Anchor to bottom and grow upward
-        int y = bottomAnchor - height;
-        if (clip != null)
-        {
-            int minY = clip.y + 4;
-            int maxY = (clip.y + clip.height) - height - 4;
-            if (y < minY)
+            Graphics2D ig = img.createGraphics();
+            try
             {
-                y = minY;
+                ig.setComposite(AlphaComposite.Clear);
+                ig.fillRect(0, 0, area.width, area.height);
+                ig.setComposite(AlphaComposite.SrcOver);
+                ig.setRenderingHints(g.getRenderingHints());
+                ig.translate(-area.x, -area.y);
+                paintPanel(ig, layout, firstRow, pal, hideNative, level);
             }
-            if (y > maxY)
+            finally
             {
-                y = maxY;
+                ig.dispose();
             }
+
+            panelImage = img;
+            imageArea = area;
+            imageLayout = layout;
+            imageFirstRow = firstRow;
+            imagePalette = pal;
+            imageHideNative = hideNative;
+            imageLevel = level;
         }
 
+        Rectangle a = imageArea;
+        g.drawImage(panelImage, a.x, a.y, a.x + a.width, a.y + a.height, 0, 0, a.width, a.height, null);
+    }
+
+    /**
+     * Draw the whole panel: optional backdrop, frame, dialog lines and the option rows
+     * visible from firstRow, with the extras level allows.
+     */
+    private static void paintPanel(Graphics2D g, DialogLayout layout, int firstRow, OverlayStyles.Palette pal,
+        boolean hideNative, RenderQuality.Level level)
+    {
+        final Rectangle bounds = layout.bounds;
+        final int x = layout.x;
+        final int y = layout.y;
+        final int width = layout.width;
+        final int height = layout.height;
+        final int pad = layout.pad;
+        final Color shadow = level.shadows() ? pal.textShadow : null;
+
         // Optional: hide the native dialog underneath
-        if (config.hideNativeDialog())
+        if (hideNative)
         {
             g.setPaint(pal.backdropPaint);
             g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
         }
 
         // Main panel
-        RoundRectangle2D panel = new RoundRectangle2D.Double(x, y, width, height, 12, 12);
-        g.setPaint(pal.panelPaint);
-        g.fill(panel);
+        if (level.gradients())
+        {
+            g.setPaint(pal.panelPaint);
+            g.fill(layout.panel);
 
-        // subtle double-frame for a more native bevel feel
-        g.setColor(pal.border);
-        g.draw(panel);
+            // subtle double-frame for a more native bevel feel
+            g.setColor(pal.border);
+            g.draw(layout.panel);
 
-        RoundRectangle2D inner = new RoundRectangle2D.Double(x + 1, y + 1, width - 2, height - 2, 12, 12);
-        g.setColor(pal.innerBorder);
-        g.draw(inner);
+            g.setColor(pal.innerBorder);
+            g.draw(layout.innerPanel);
+        }
+        else
+        {
+            // Square corners and a solid fill: plain blits instead of shape rasterization.
+            g.setColor(pal.flatPanelPaint);
+            g.fillRect(x, y, width, height);
+
+            g.setColor(pal.border);
+            g.drawRect(x, y, width, height);
+        }
 
         int cx = x + pad;
         int cy = y + pad;
 
         // Draw dialog lines
-        g.setFont(dialogFont);
+        g.setFont(layout.dialogFont);
 
+        List<DialogLayout.Line> dialogLines = layout.dialogLines;
         for (int i = 0; i < dialogLines.size(); i++)
         {
-            String l = dialogLines.get(i);
+            Color textColor = i == 0 && layout.hasSpeaker ? pal.speakerText : pal.dialogText;
 
-            Color textColor;
-            if (i == 0 && speaker != null && !speaker.isBlank())
-            {
-                textColor = pal.speakerText;
-            }
-            else
-            {
-                textColor = pal.dialogText;
-            }
-
-            cy += dialogLineH;
+            cy += layout.dialogLineH;
             if (cy > y + height - pad)
             {
                 break;
             }
 
-            if (pal.textShadow != null)
-            {
-                g.setColor(pal.textShadow);
-                g.drawString(l, cx + 1, cy + 1);
-            }
-
-            g.setColor(textColor);
-            g.drawString(l, cx, cy);
+            drawLine(g, dialogLines.get(i), cx, cy, textColor, shadow);
         }
 
-        // Draw options as rows with dividers
-        if (!optionWrapped.isEmpty())
+        // Draw the options that fit the viewport, from the scrolled-to row, with dividers
+        List<DialogLayout.Row> rows = layout.rows;
+        if (!rows.isEmpty())
         {
-            cy += rowGapTop;
+            cy = layout.optionsTop;
 
-            g.setFont(optFont);
+            g.setFont(layout.optionFont);
 
             int rowsX = x + pad;
             int rowsW = width - pad * 2;
 
-            for (int i = 0; i < optionWrapped.size(); i++)
+            int end = layout.visibleEnd(firstRow);
+            for (int i = firstRow; i < end; i++)
             {
-                List<String> rowLines = optionWrapped.get(i);
-                int linesCount = Math.max(1, rowLines.size());
-                int rowTextH = (linesCount * optLineH) + ((linesCount - 1) * wrapGap);
-                int rowH = (rowPadY * 2) + rowTextH;
-
-                // Do not draw if it would exceed the visible panel space
-                if (cy + rowH > y + height - pad)
-                {
-                    break;
-                }
+                DialogLayout.Row row = rows.get(i);
+                int rowH = row.height;
 
                 // Row background (flat, inset feel)
                 g.setColor(pal.rowFill);
@@ -269,142 +333,82 @@ public class DialogTextOverlay extends Overlay
                 g.setColor(pal.rowOutline);
                 g.drawRect(rowsX, cy, rowsW, rowH);
 
-                int tx = rowsX + rowPadX;
-                int ty = cy + rowPadY;
+                int tx = rowsX + layout.rowPadX;
+                int ty = cy + layout.rowPadY;
 
                 // Option text
-                g.setColor(pal.optionText);
-
-                for (int li = 0; li < rowLines.size(); li++)
+                for (int li = 0; li < row.lines.size(); li++)
                 {
-                    ty += optLineH;
+                    ty += layout.optionLineH;
                     if (li > 0)
                     {
-                        ty += wrapGap;
+                        ty += layout.wrapGap;
                     }
 
-                    String l = rowLines.get(li);
-
-                    if (pal.textShadow != null)
-                    {
-                        g.setColor(pal.textShadow);
-                        g.drawString(l, tx + 1, ty + 1);
-                        g.setColor(pal.optionText);
-                    }
-
-                    g.drawString(l, tx, ty);
+                    drawLine(g, row.lines.get(li), tx, ty, pal.optionText, shadow);
                 }
 
                 cy += rowH;
 
                 // Divider under row except last
-                if (i < optionWrapped.size() - 1)
+                if (i < end - 1)
                 {
                     g.setColor(pal.rowDivider);
                     g.drawLine(rowsX, cy, rowsX + rowsW, cy);
                     cy += 1;
                 }
             }
-        }
 
-        g.setFont(base);
-        return null;
+            // Scrollbar in the right padding when not every option fits
+            if (layout.maxFirstRow > 0 && layout.viewportH > 0)
+            {
+                long total = layout.rowTop(rows.size()) - 1;
+                int barW = layout.scrollbarW;
+                int barX = x + width - (pad + barW) / 2;
+                int thumbY = layout.optionsTop + (int) (layout.viewportH * layout.rowTop(firstRow) / total);
+                int thumbH = (int) (layout.viewportH * (layout.rowTop(end) - 1 - layout.rowTop(firstRow)) / total);
+
+                g.setColor(pal.rowDivider);
+                g.fillRect(barX, layout.optionsTop, barW, layout.viewportH);
+                g.setColor(pal.rowOutline);
+                g.fillRect(barX, thumbY, barW, Math.max(barW * 2, thumbH));
+            }
+        }
     }
 
-    private static final class Palette
+    /**
+     * @return the uniform scale from user space to device pixels, or 1 when the transform
+     *         also rotates, shears, flips or scales the axes differently
+     */
+    private static double deviceScale(AffineTransform transform)
     {
-        final Paint panelPaint;
-        final Paint backdropPaint;
-
-        final Color border;
-        final Color innerBorder;
-
-        final Color dialogText;
-        final Color speakerText;
-
-        final Color optionText;
-
-        // Row style paints
-        final Color rowFill;
-        final Color rowOutline;
-        final Color rowDivider;
-
-        final Color textShadow; // may be null
-
-        private Palette(
-                Paint panelPaint,
-                Paint backdropPaint,
-                Color border,
-                Color innerBorder,
-                Color dialogText,
-                Color speakerText,
-                Color optionText,
-                Color rowFill,
-                Color rowOutline,
-                Color rowDivider,
-                Color textShadow)
+        int type = transform.getType();
+        if ((type & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_UNIFORM_SCALE)) != 0)
         {
-            this.panelPaint = panelPaint;
-            this.backdropPaint = backdropPaint;
-            this.border = border;
-            this.innerBorder = innerBorder;
-            this.dialogText = dialogText;
-            this.speakerText = speakerText;
-            this.optionText = optionText;
-            this.rowFill = rowFill;
-            this.rowOutline = rowOutline;
-            this.rowDivider = rowDivider;
-            this.textShadow = textShadow;
+            return 1.0;
         }
+        double scale = transform.getScaleX();
+        return scale > 0 ? scale : 1.0;
     }
 
-    private static Palette paletteFor(AccessibilityPlusConfig.DialogTheme theme, int x, int y, int h, int opacity)
+    private static void drawLine(Graphics2D g, DialogLayout.Line l, int x, int y, Color color, Color shadow)
     {
-        int a = clamp(opacity, 40, 255);
-        int hh = Math.max(1, h);
-
-        if (theme == AccessibilityPlusConfig.DialogTheme.PARCHMENT)
+        if (shadow != null)
         {
-            // Warmer/darker parchment closer to native chatbox
-            Color top = new Color(214, 203, 168, a);
-            Color bottom = new Color(198, 185, 150, a);
-            GradientPaint gp = new GradientPaint(x, y, top, x, y + hh, bottom);
-
-            // Borders/text: full alpha only
-            Color border = new Color(112, 98, 68);
-            Color innerBorder = new Color(235, 226, 198);
-
-            Color dialogText = new Color(40, 34, 24);
-            Color speaker = new Color(255, 184, 0);
-            Color optionText = new Color(40, 34, 24);
-
-            // Rows: slightly darker inset tone
-            Color rowFill = new Color(205, 193, 160, a);
-            Color rowOutline = new Color(140, 126, 92);   // subtle
-            Color rowDivider = new Color(170, 158, 126);  // subtle
-
-            Color shadow = new Color(120, 110, 90);
-
-            return new Palette(gp, gp, border, innerBorder, dialogText, speaker, optionText, rowFill, rowOutline, rowDivider, shadow);
+            g.setColor(shadow);
+            g.drawString(l.text, x + 1, y + 1);
         }
 
-        // BLACK_PANEL (default)
-        Color bg = new Color(15, 15, 15, a);
-
-        Color border = new Color(235, 235, 235);
-        Color innerBorder = new Color(60, 60, 60);
-
-        Color dialogText = new Color(235, 235, 235);
-        Color speaker = new Color(255, 215, 0);
-        Color optionText = new Color(235, 235, 235);
-
-        Color rowFill = new Color(30, 30, 30, a);
-        Color rowOutline = new Color(80, 80, 80);
-        Color rowDivider = new Color(70, 70, 70);
-
-        Color shadow = new Color(0, 0, 0);
-
-        return new Palette(bg, bg, border, innerBorder, dialogText, speaker, optionText, rowFill, rowOutline, rowDivider, shadow);
+        // Uncolored runs of a layout take the Graphics color.
+        g.setColor(color);
+        if (l.layout != null)
+        {
+            l.layout.draw(g, x, y);
+        }
+        else
+        {
+            g.drawString(l.text, x, y);
+        }
     }
 
     private static int clamp(int v, int lo, int hi)
@@ -0,0 +1,142 @@
+package com.accessibilityplus;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resumable sweep over (group, child) roots for the heuristic option-menu fallback.
+ *
+ * Each call to step() runs until either the visitor asks to stop, the sweep is complete,
+ * or the per-tick nanosecond budget is spent. The cursor is kept between calls, so a full
+ * sweep is spread over several ticks instead of spiking a single frame.
+ *
+ * Only touched from the client thread.
+ */
+@Slf4j
+class FallbackRootScanner
+{
+    /**
+     * Visits one root. Returns true to stop the sweep early.
+     */
+    interface RootVisitor
+    {
+        boolean visit(int group, int child);
+    }
+
+    // Checking the clock is not free; look at it once per this many roots.
+    private static final int CLOCK_CHECK_INTERVAL = 16;
+
+    private final int[] groups;
+    private final int maxChild;
+
+    private boolean active = false;
+    private int groupIdx = 0;
+    private int child = 0;
+    private int sweepTicks = 0;
+    private long sweepNanos = 0L;
+
+    /**
+     * Most expensive single step since startup, in nanoseconds.
+     */
+    @Getter
+    private long worstStepNanos = 0L;
+
+    /**
+     * Cost of the last step, in nanoseconds.
+     */
+    @Getter
+    private long lastStepNanos = 0L;
+
+    FallbackRootScanner(int[] groups, int maxChild)
+    {
+        this.groups = groups;
+        this.maxChild = maxChild;
+    }
+
+    boolean isActive()
+    {
+        return active;
+    }
+
+    void start()
+    {
+        active = true;
+        groupIdx = 0;
+        child = 0;
+        sweepTicks = 0;
+        sweepNanos = 0L;
+    }
+
+    void cancel()
+    {
+        active = false;
+    }
+
+    /**
+     * Continue the sweep within the given budget.
+     *
+     * @return true if the sweep finished (visited everything or was stopped by the visitor)
+     */
+    boolean step(long budgetNanos, RootVisitor visitor)
+    {
+        if (!active)
+        {
+            return true;
+        }
+
+        final long start = System.nanoTime();
+        final long deadline = start + Math.max(0L, budgetNanos);
+        boolean finished = false;
+        int sinceClock = 0;
+
+        outer:
+        while (groupIdx < groups.length)
+        {
+            int group = groups[groupIdx];
+            while (child < maxChild)
+            {
+                int c = child++;
+                if (visitor.visit(group, c))
+                {
+                    finished = true;
+                    break outer;
+                }
+
+                if (++sinceClock >= CLOCK_CHECK_INTERVAL)
+                {
+                    sinceClock = 0;
+                    if (System.nanoTime() - deadline >= 0)
+                    {
+                        break outer;
+                    }
+                }
+            }
+            groupIdx++;
+            child = 0;
+        }
+
+        if (groupIdx >= groups.length)
+        {
+            finished = true;
+        }
+
+        long spent = System.nanoTime() - start;
+        lastStepNanos = spent;
+        sweepTicks++;
+        sweepNanos += spent;
+
+        if (spent > worstStepNanos)
+        {
+            worstStepNanos = spent;
+            log.debug("Fallback scan worst step: {} us", spent / 1000L);
+        }
+
+        if (finished)
+        {
+            active = false;
+            log.debug("Fallback scan finished in {} tick(s), {} us total", sweepTicks, sweepNanos / 1000L);
+        }
+
+        return finished;
+    }
+}
@@ -0,0 +1,294 @@
+package com.accessibilityplus;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.font.FontRenderContext;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Line break opportunities for one string in one font, with every segment already measured.
+ *
+ * Segments come from BreakIterator's line instance, so text can break after hyphens and
+ * slashes and between CJK ideographs, not only at spaces. The analysis and measurement
+ * happen once per (text, font, render context); wrapping at any width afterwards only adds
+ * up stored widths, so a panel width change re-wraps without looking at the text again.
+ *
+ * Instances are immutable and cached; get them with of().
+ */
+final class LineBreaks
+{
+    // Enough for a long option list measured at the handful of sizes an auto-fit search probes.
+    private static final int CACHED_TEXTS = 512;
+
+    // Most recently used last.
+    private static final Map<List<Object>, LineBreaks> CACHE = new LinkedHashMap<List<Object>, LineBreaks>(CACHED_TEXTS, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, LineBreaks> eldest)
+        {
+            return size() > CACHED_TEXTS;
+        }
+    };
+
+    private final String text;
+    private final FontMetrics fm;
+    private final float[] adv; // Latin-1 advances, or null if text needs FontMetrics
+
+    // Segment i covers [starts[i], starts[i + 1]); its visible part ends at contentEnds[i].
+    private final int count;
+    private final int[] starts;
+    private final int[] contentEnds;
+    private final float[] contentWidths;
+    private final double[] fullSums; // fullSums[i] = width of segments [0, i) including trailing spaces
+
+    private LineBreaks(String text, FontMetrics fm, float[] adv, int count, int[] starts, int[] contentEnds,
+        float[] contentWidths, double[] fullSums)
+    {
+        this.text = text;
+        this.fm = fm;
+        this.adv = adv;
+        this.count = count;
+        this.starts = starts;
+        this.contentEnds = contentEnds;
+        this.contentWidths = contentWidths;
+        this.fullSums = fullSums;
+    }
+
+    static LineBreaks of(FontMetrics fm, String text)
+    {
+        String cleaned = TextWrapUtil.clean(text);
+        Font font = fm.getFont();
+        FontRenderContext frc = fm.getFontRenderContext();
+        List<Object> key = List.of(cleaned, font, frc);
+
+        synchronized (CACHE)
+        {
+            LineBreaks lb = CACHE.get(key);
+            if (lb != null)
+            {
+                return lb;
+            }
+        }
+
+        // Analyse outside the lock; a duplicate build for the same key is harmless.
+        LineBreaks lb = analyse(fm, cleaned);
+        synchronized (CACHE)
+        {
+            CACHE.put(key, lb);
+        }
+        return lb;
+    }
+
+    private static LineBreaks analyse(FontMetrics fm, String text)
+    {
+        float[] adv = TextWrapUtil.advancesFor(fm, text);
+
+        BreakIterator bi = BreakIterator.getLineInstance();
+        bi.setText(text);
+
+        int capacity = Math.max(1, text.length() / 4);
+        int[] starts = new int[capacity + 1];
+        int[] contentEnds = new int[capacity];
+        float[] contentWidths = new float[capacity];
+        double[] fullSums = new double[capacity + 1];
+        int count = 0;
+
+        int s = bi.first();
+        for (int e = bi.next(); e != BreakIterator.DONE; s = e, e = bi.next())
+        {
+            int ce = e;
+            while (ce > s && Character.isWhitespace(text.charAt(ce - 1)))
+            {
+                ce--;
+            }
+
+            if (count == contentEnds.length)
+            {
+                int n = count * 2;
+                starts = Arrays.copyOf(starts, n + 1);
+                contentEnds = Arrays.copyOf(contentEnds, n);
+                contentWidths = Arrays.copyOf(contentWidths, n);
+                fullSums = Arrays.copyOf(fullSums, n + 1);
+            }
+
+            float content = measure(fm, adv, text, s, ce);
+            starts[count] = s;
+            contentEnds[count] = ce;
+            contentWidths[count] = content;
+            fullSums[count + 1] = fullSums[count] + content + measure(fm, adv, text, ce, e);
+            count++;
+        }
+        starts[count] = text.length();
+
+        return new LineBreaks(text, fm, adv, count, starts, contentEnds, contentWidths, fullSums);
+    }
+
+    private static float measure(FontMetrics fm, float[] adv, String text, int from, int to)
+    {
+        if (from == to)
+        {
+            return 0f;
+        }
+        return adv != null ? TextWrapUtil.width(adv, text, from, to, 0f) : fm.stringWidth(text.substring(from, to));
+    }
+
+    List<String> wrap(int maxWidthPx, AccessibilityPlusConfig.WrapMode mode)
+    {
+        List<String> out = new ArrayList<>();
+        if (mode == AccessibilityPlusConfig.WrapMode.BALANCED)
+        {
+            // Segments too wide for any line split the text into runs balanced on their own.
+            int runStart = 0;
+            for (int k = 0; k <= count; k++)
+            {
+                if (k == count || TextWrapUtil.round(contentWidths[k]) > maxWidthPx)
+                {
+                    balance(runStart, k, maxWidthPx, out);
+                    if (k < count)
+                    {
+                        hardBreak(k, maxWidthPx, out);
+                    }
+                    runStart = k + 1;
+                }
+            }
+        }
+        else
+        {
+            greedy(maxWidthPx, out);
+        }
+        return out;
+    }
+
+    /**
+     * Width of segments [i, j] on one line: everything up to j plus j's visible part.
+     */
+    private double lineWidth(int i, int j)
+    {
+        return fullSums[j] - fullSums[i] + contentWidths[j];
+    }
+
+    private void greedy(int maxWidthPx, List<String> out)
+    {
+        int i = 0;
+        while (i < count)
+        {
+            if (TextWrapUtil.round(contentWidths[i]) > maxWidthPx)
+            {
+                hardBreak(i, maxWidthPx, out);
+                i++;
+                continue;
+            }
+
+            int j = i + 1;
+            while (j < count && TextWrapUtil.round(lineWidth(i, j)) <= maxWidthPx)
+            {
+                j++;
+            }
+
+            out.add(text.substring(starts[i], contentEnds[j - 1]));
+            i = j;
+        }
+    }
+
+    /**
+     * Break segments [from, to), each of which fits on a line by itself, into the fewest
+     * lines, and among those the ones with the least squared leftover space. See
+     * TextWrapUtil.wrap for why the last line is scored too.
+     */
+    private void balance(int from, int to, int maxWidthPx, List<String> out)
+    {
+        int n = to - from;
+        if (n <= 0)
+        {
+            return;
+        }
+
+        // Best way to set segments [from + i, to): line count, then badness; next[i] ends its first line.
+        int[] lineCount = new int[n + 1];
+        double[] badness = new double[n + 1];
+        int[] next = new int[n];
+
+        for (int i = n - 1; i >= 0; i--)
+        {
+            int bestLines = Integer.MAX_VALUE;
+            double bestBad = Double.MAX_VALUE;
+
+            for (int j = i; j < n; j++)
+            {
+                double w = lineWidth(from + i, from + j);
+                if (j > i && TextWrapUtil.round(w) > maxWidthPx)
+                {
+                    break;
+                }
+
+                int l = 1 + lineCount[j + 1];
+                double slack = maxWidthPx - w;
+                double b = slack * slack + badness[j + 1];
+                if (l < bestLines || (l == bestLines && b < bestBad))
+                {
+                    bestLines = l;
+                    bestBad = b;
+                    next[i] = j + 1;
+                }
+            }
+
+            lineCount[i] = bestLines;
+            badness[i] = bestBad;
+        }
+
+        for (int i = 0; i < n; i = next[i])
+        {
+            out.add(text.substring(starts[from + i], contentEnds[from + next[i] - 1]));
+        }
+    }
+
+    /**
+     * Split segment k, which is wider than a line, into the longest pieces that fit.
+     */
+    private void hardBreak(int k, int maxWidthPx, List<String> out)
+    {
+        int s = starts[k];
+        int e = contentEnds[k];
+        if (adv != null)
+        {
+            TextWrapUtil.hardBreakWord(adv, text, s, e, maxWidthPx, out);
+            return;
+        }
+
+        // Break between grapheme clusters, binary searching the longest piece that fits.
+        BreakIterator chars = BreakIterator.getCharacterInstance();
+        chars.setText(text.substring(s, e));
+        List<Integer> bounds = new ArrayList<>();
+        for (int b = chars.first(); b != BreakIterator.DONE; b = chars.next())
+        {
+            bounds.add(s + b);
+        }
+
+        int start = 0;
+        int last = bounds.size() - 1;
+        while (start < last)
+        {
+            int lo = start + 1;
+            int hi = last;
+            while (lo < hi)
+            {
+                int mid = (lo + hi + 1) >>> 1;
+                if (fm.stringWidth(text.substring(bounds.get(start), bounds.get(mid))) <= maxWidthPx)
+                {
+                    lo = mid;
+                }
+                else
+                {
+                    hi = mid - 1;
+                }
+            }
+            out.add(text.substring(bounds.get(start), bounds.get(lo)));
+            start = lo;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.accessibilityplus;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import javax.inject.Inject;
+import net.runelite.api.BufferProvider;
+import net.runelite.api.Client;
+import net.runelite.api.Point;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+
+/**
+ * Magnifying lens for low-vision players.
+ *
+ * Each frame the source rectangle around the mouse (or, with DIALOG focus, the mouse
+ * position held inside the dialog) is copied row by row out of the client's pixel buffer
+ * into a pooled image, which is then drawn enlarged in a lens beside it, never covering it.
+ * Only that rectangle is ever copied, and the pooled image is only reallocated when the
+ * region grows.
+ *
+ * Drawn on the top layer, so the lens also magnifies the other overlays, including the
+ * accessibility dialog.
+ *
+ * Under a GPU renderer (any plugin installing DrawCallbacks) the scene is drawn by the GPU
+ * and the client's pixel buffer only holds the interface, so the lens would show the world
+ * as black; it is not drawn then.
+ *
+ * Its draw time is not reported to RenderQuality: no quality level makes the lens cheaper,
+ * so counting it would only take quality away from the dialog and minimap.
+ */
+public class MagnifierOverlay extends Overlay
+{
+    private static final Stroke LENS_STROKE = new BasicStroke(2f);
+    private static final Color LENS_BORDER = Color.WHITE;
+    private static final Color LENS_EDGE = Color.BLACK;
+
+    // Gap between the source rectangle and the lens.
+    private static final int LENS_GAP = 12;
+
+    private final Client client;
+    private final AccessibilityPlusPlugin plugin;
+    private final AccessibilityPlusConfig config;
+
+    // Pooled destination; only touched from the render thread.
+    private BufferedImage pool;
+
+    @Inject
+    public MagnifierOverlay(Client client, AccessibilityPlusPlugin plugin, AccessibilityPlusConfig config)
+    {
+        this.client = client;
+        this.plugin = plugin;
+        this.config = config;
+
+        setPosition(OverlayPosition.DYNAMIC);
+        setLayer(OverlayLayer.ALWAYS_ON_TOP);
+    }
+
+    @Override
+    public Dimension render(Graphics2D g)
+    {
+        if (!config.enableMagnifier() || client.getDrawCallbacks() != null)
+        {
+            pool = null;
+            return null;
+        }
+
+        BufferProvider buffer = client.getBufferProvider();
+        Point mouse = client.getMouseCanvasPosition();
+        if (buffer == null || mouse == null || mouse.getX() < 0 || mouse.getY() < 0)
+        {
+            return null;
+        }
+
+        int bufW = buffer.getWidth();
+        int bufH = buffer.getHeight();
+        int zoom = config.magnifierZoom();
+
+        int cx = mouse.getX();
+        int cy = mouse.getY();
+        if (config.magnifierFocus() == AccessibilityPlusConfig.MagnifierFocus.DIALOG)
+        {
+            Rectangle dialog = plugin.getDialogSnapshot().getBounds();
+            if (dialog != null && !dialog.isEmpty())
+            {
+                cx = clamp(cx, dialog.x, dialog.x + dialog.width - 1);
+                cy = clamp(cy, dialog.y, dialog.y + dialog.height - 1);
+            }
+        }
+
+        Rectangle src = sourceRegion(cx, cy, config.magnifierWidth(), config.magnifierHeight(), bufW, bufH);
+        if (src.isEmpty())
+        {
+            return null;
+        }
+
+        BufferedImage img = pool;
+        if (img == null || img.getWidth() < src.width || img.getHeight() < src.height)
+        {
+            int w = Math.max(src.width, img == null ? 0 : img.getWidth());
+            int h = Math.max(src.height, img == null ? 0 : img.getHeight());
+            img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            pool = img;
+        }
+        Rectangle lens = lensBounds(src, zoom, bufW, bufH);
+        if (lens.isEmpty())
+        {
+            return null;
+        }
+        copyRegion(buffer.getPixels(), bufW, src, img);
+
+        Object interpolation = config.magnifierScaling() == AccessibilityPlusConfig.MagnifierScaling.BILINEAR
+            ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
+            : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        g.drawImage(img, lens.x, lens.y, lens.x + lens.width, lens.y + lens.height, 0, 0, src.width, src.height, null);
+
+        // Two-tone frame so the lens stands out on light and dark backgrounds alike.
+        g.setStroke(LENS_STROKE);
+        g.setColor(LENS_EDGE);
+        g.drawRect(lens.x - 2, lens.y - 2, lens.width + 3, lens.height + 3);
+        g.setColor(LENS_BORDER);
+        g.drawRect(lens.x, lens.y, lens.width - 1, lens.height - 1);
+
+        return null;
+    }
+
+    /**
+     * @return the width x height rectangle centered on (cx, cy), shifted to lie inside the
+     *         buffer and cut down if the buffer is smaller
+     */
+    static Rectangle sourceRegion(int cx, int cy, int width, int height, int bufW, int bufH)
+    {
+        int w = Math.min(width, bufW);
+        int h = Math.min(height, bufH);
+        int x = clamp(cx - w / 2, 0, bufW - w);
+        int y = clamp(cy - h / 2, 0, bufH - h);
+        return new Rectangle(x, y, Math.max(0, w), Math.max(0, h));
+    }
+
+    /**
+     * Where to draw src enlarged by zoom, never on top of src itself: centered below it, else
+     * above, to the right or to the left, whichever side first has room. The lens is cut down
+     * (keeping its aspect ratio) to fit the canvas, and to fit the roomiest side when none of
+     * them has room for all of it. Empty when src leaves no room at all.
+     */
+    static Rectangle lensBounds(Rectangle src, int zoom, int bufW, int bufH)
+    {
+        double w = src.width * zoom;
+        double h = src.height * zoom;
+        double fit = Math.min(1.0, Math.min(bufW / w, bufH / h));
+        w *= fit;
+        h *= fit;
+
+        // Free space below, above, right and left of src, in that order of preference.
+        int[] room = {
+            bufH - (src.y + src.height) - LENS_GAP,
+            src.y - LENS_GAP,
+            bufW - (src.x + src.width) - LENS_GAP,
+            src.x - LENS_GAP,
+        };
+        int side = 0;
+        double best = 0.0;
+        for (int i = 0; i < room.length; i++)
+        {
+            double scale = Math.min(1.0, room[i] / (i < 2 ? h : w));
+            if (scale > best)
+            {
+                best = scale;
+                side = i;
+            }
+        }
+
+        int lw = (int) (w * best);
+        int lh = (int) (h * best);
+        if (lw <= 0 || lh <= 0)
+        {
+            return new Rectangle();
+        }
+
+        int x;
+        int y;
+        if (side < 2)
+        {
+            x = clamp(src.x + src.width / 2 - lw / 2, 0, bufW - lw);
+            y = side == 0 ? src.y + src.height + LENS_GAP : src.y - LENS_GAP - lh;
+        }
+        else
+        {
+            x = side == 2 ? src.x + src.width + LENS_GAP : src.x - LENS_GAP - lw;
+            y = clamp(src.y + src.height / 2 - lh / 2, 0, bufH - lh);
+        }
+        return new Rectangle(x, y, lw, lh);
+    }
+
+    /**
+     * Copy pixels[src] (rows of stride ints) into the top left corner of dest, which must be
+     * TYPE_INT_RGB and at least as large as src.
+     */
+    static void copyRegion(int[] pixels, int stride, Rectangle src, BufferedImage dest)
+    {
+        // Writing the raster directly keeps dest out of the accelerated image cache, which a
+        // picture that changes every frame would not benefit from anyway.
+        int[] out = ((DataBufferInt) dest.getRaster().getDataBuffer()).getData();
+        int outStride = dest.getWidth();
+        for (int row = 0; row < src.height; row++)
+        {
+            System.arraycopy(pixels, (src.y + row) * stride + src.x, out, row * outStride, src.width);
+        }
+    }
+
+    private static int clamp(int v, int lo, int hi)
+    {
+        return Math.max(lo, Math.min(hi, v));
+    }
+}
@@ -1,10 +1,9 @@
 package com.accessibilityplus;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
-import java.awt.Point;
+import java.awt.RenderingHints;
 import java.awt.geom.Path2D;
 import java.util.List;
 
@@ -14,6 +13,7 @@ import net.runelite.api.Client;
 import net.runelite.api.NPC;
 import net.runelite.api.Player;
 import net.runelite.api.Perspective;
+import net.runelite.api.Point;
 import net.runelite.api.coords.LocalPoint;
 
 import net.runelite.client.ui.overlay.Overlay;
@@ -30,17 +30,31 @@ import net.runelite.client.ui.overlay.OverlayPosition;
  * - You: diamond
  * - Other players: square
  * - NPCs: triangle
+ *
+ * Under RenderQuality's entity cap only the first shapes of each kind that land on the
+ * minimap are drawn; entities off the minimap do not count towards the cap.
+ *
+ * Colors, strokes and the shape path are reused, but Perspective.localToMinimap returns a
+ * new Point for every entity, so each frame allocates one per entity on the minimap.
  */
 public class MinimapShapesOverlay extends Overlay
 {
     private final Client client;
     private final AccessibilityPlusConfig config;
+    private final OverlayStyles styles;
+    private final RenderQuality quality;
+
+    // Reused for every triangle and diamond; only touched from the render thread.
+    private final Path2D.Double path = new Path2D.Double();
 
     @Inject
-    public MinimapShapesOverlay(Client client, AccessibilityPlusConfig config)
+    public MinimapShapesOverlay(Client client, AccessibilityPlusConfig config, OverlayStyles styles,
+        RenderQuality quality)
     {
         this.client = client;
         this.config = config;
+        this.styles = styles;
+        this.quality = quality;
 
         setPosition(OverlayPosition.DYNAMIC);
         setLayer(OverlayLayer.ABOVE_WIDGETS);
@@ -48,6 +62,19 @@ public class MinimapShapesOverlay extends Overlay
 
     @Override
     public Dimension render(Graphics2D g)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            return renderShapes(g);
+        }
+        finally
+        {
+            quality.record(System.nanoTime() - start);
+        }
+    }
+
+    private Dimension renderShapes(Graphics2D g)
     {
         if (!config.enableMinimapShapes())
         {
@@ -57,11 +84,18 @@ public class MinimapShapesOverlay extends Overlay
         int size = Math.max(2, config.minimapShapeSize());
         int alpha = clamp(config.minimapShapeOpacity(), 30, 255);
 
-        // Very high contrast: white outline, black fill.
-        Color outline = new Color(255, 255, 255, alpha);
-        Color fill = new Color(0, 0, 0, alpha);
+        OverlayStyles.MinimapColors colors = styles.minimapColors(alpha);
+        Color outline = colors.outline;
+        Color fill = colors.fill;
 
-        g.setStroke(new BasicStroke(2f));
+        g.setStroke(OverlayStyles.MINIMAP_STROKE);
+
+        RenderQuality.Level level = quality.getLevel();
+        if (!level.antialias())
+        {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        }
+        int cap = level.entityCap();
 
         // Local player
         if (config.showLocalPlayerOnMinimapShapes())
@@ -79,13 +113,21 @@ public class MinimapShapesOverlay extends Overlay
             List<Player> players = client.getPlayers();
             if (players != null)
             {
+                int drawn = 0;
                 for (Player p : players)
                 {
+                    if (drawn >= cap)
+                    {
+                        break;
+                    }
                     if (p == null || p == client.getLocalPlayer())
                     {
                         continue;
                     }
-                    drawSquare(g, p.getLocalLocation(), size, fill, outline);
+                    if (drawSquare(g, p.getLocalLocation(), size, fill, outline))
+                    {
+                        drawn++;
+                    }
                 }
             }
         }
@@ -96,13 +138,21 @@ public class MinimapShapesOverlay extends Overlay
             List<NPC> npcs = client.getNpcs();
             if (npcs != null)
             {
+                int drawn = 0;
                 for (NPC n : npcs)
                 {
+                    if (drawn >= cap)
+                    {
+                        break;
+                    }
                     if (n == null)
                     {
                         continue;
                     }
-                    drawTriangle(g, n.getLocalLocation(), size, fill, outline);
+                    if (drawTriangle(g, n.getLocalLocation(), size, fill, outline))
+                    {
+                        drawn++;
+                    }
                 }
             }
         }
@@ -110,42 +160,48 @@ public class MinimapShapesOverlay extends Overlay
         return null;
     }
 
-    private void drawSquare(Graphics2D g, LocalPoint lp, int r, Color fill, Color outline)
+    private boolean drawSquare(Graphics2D g, LocalPoint lp, int r, Color fill, Color outline)
     {
         Point p = localToMinimap(lp);
         if (p == null)
         {
-            return;
+            return false;
         }
 
-        int x = p.x - r;
-        int y = p.y - r;
+        int x = p.getX() - r;
+        int y = p.getY() - r;
         int d = r * 2;
 
         g.setColor(fill);
         g.fillRect(x, y, d, d);
         g.setColor(outline);
         g.drawRect(x, y, d, d);
+        return true;
     }
 
-    private void drawTriangle(Graphics2D g, LocalPoint lp, int r, Color fill, Color outline)
+    private boolean drawTriangle(Graphics2D g, LocalPoint lp, int r, Color fill, Color outline)
     {
         Point p = localToMinimap(lp);
         if (p == null)
         {
-            return;
+            return false;
         }
 
-        Path2D tri = new Path2D.Double();
-        tri.moveTo(p.x, p.y - r);
-        tri.lineTo(p.x - r, p.y + r);
-        tri.lineTo(p.x + r, p.y + r);
+        int px = p.getX();
+        int py = p.getY();
+
+        Path2D tri = path;
+        tri.reset();
+        tri.moveTo(px, py - r);
+        tri.lineTo(px - r, py + r);
+        tri.lineTo(px + r, py + r);
         tri.closePath();
 
         g.setColor(fill);
         g.fill(tri);
         g.setColor(outline);
         g.draw(tri);
+        return true;
     }
 
     private void drawDiamond(Graphics2D g, LocalPoint lp, int r, Color fill, Color outline)
@@ -156,11 +212,15 @@ public class MinimapShapesOverlay extends Overlay
             return;
         }
 
-        Path2D d = new Path2D.Double();
-        d.moveTo(p.x, p.y - r);
-        d.lineTo(p.x - r, p.y);
-        d.lineTo(p.x, p.y + r);
-        d.lineTo(p.x + r, p.y);
+        int px = p.getX();
+        int py = p.getY();
+
+        Path2D d = path;
+        d.reset();
+        d.moveTo(px, py - r);
+        d.lineTo(px - r, py);
+        d.lineTo(px, py + r);
+        d.lineTo(px + r, py);
         d.closePath();
 
         g.setColor(fill);
@@ -176,13 +236,7 @@ public class MinimapShapesOverlay extends Overlay
             return null;
         }
 
-        net.runelite.api.Point p = Perspective.localToMinimap(client, lp);
-        if (p == null)
-        {
-            return null;
-        }
-
-        return new Point(p.getX(), p.getY());
+        return Perspective.localToMinimap(client, lp);
     }
 
     private static int clamp(int v, int lo, int hi)
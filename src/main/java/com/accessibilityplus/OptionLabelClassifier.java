@@ -0,0 +1,354 @@
+package com.accessibilityplus;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides whether a cleaned widget text looks like a dialog option label.
+ *
+ * The text is scanned once by a small hand-written state machine that records its shape
+ * (plain number, "3." list marker, timer, "Name: message" chat line). An ordered list of
+ * rules then rejects the text by looking at that shape, so no regex is compiled or run on
+ * the hot path. The first rule that matches wins; if none match the text is a label.
+ *
+ * Each rule keeps hit / miss counters for tuning misclassifications.
+ * Not thread-safe; only used from the client thread.
+ */
+final class OptionLabelClassifier
+{
+    /**
+     * Shape of a string, filled by a single scan.
+     */
+    static final class Shape
+    {
+        int length;
+        boolean number;      // ^\d+$
+        boolean listMarker;  // ^\d+\.$
+        boolean timer;       // ^\d+:\d+(?::\d+)?$
+        boolean chatLine;    // ^[A-Za-z0-9 _\-]{1,12}:\s+.+$
+        int phrases;         // PhraseMatcher categories found in the text
+    }
+
+    /**
+     * A rejection rule. Rules must be cheap: the shape is already computed.
+     */
+    interface Rule
+    {
+        String name();
+
+        boolean rejects(String s, Shape shape);
+    }
+
+    /**
+     * Built-in rules, in the order the old looksLikeOptionLabel / isChatTabLabel checks ran.
+     */
+    enum StandardRule implements Rule
+    {
+        TAB_LABEL
+        {
+            @Override
+            public boolean rejects(String s, Shape shape)
+            {
+                for (String tab : CHAT_TABS)
+                {
+                    if (s.equalsIgnoreCase(tab))
+                    {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        },
+        TOO_SHORT
+        {
+            @Override
+            public boolean rejects(String s, Shape shape)
+            {
+                return shape.length < 2;
+            }
+        },
+        ON_OFF
+        {
+            @Override
+            public boolean rejects(String s, Shape shape)
+            {
+                return s.equalsIgnoreCase("on") || s.equalsIgnoreCase("off");
+            }
+        },
+        LIST_MARKER
+        {
+            @Override
+            public boolean rejects(String s, Shape shape)
+            {
+                return shape.listMarker;
+            }
+        },
+        NUMBER
+        {
+            @Override
+            public boolean rejects(String s, Shape shape)
+            {
+                return shape.number;
+            }
+        },
+        TIMER
+        {
+            @Override
+            public boolean rejects(String s, Shape shape)
+            {
+                return shape.timer;
+            }
+        },
+        CHAT_LINE
+        {
+            @Override
+            public boolean rejects(String s, Shape shape)
+            {
+                return shape.chatLine;
+            }
+        },
+        SYSTEM_NOISE
+        {
+            @Override
+            public boolean rejects(String s, Shape shape)
+            {
+                return (shape.phrases & PhraseMatcher.NOISE) != 0;
+            }
+        };
+
+        private static final String[] CHAT_TABS = {
+            "all", "game", "public", "private", "channel", "clan", "trade", "friends"
+        };
+    }
+
+    // Number / timer / list marker automaton states.
+    private static final int N_START = 0;
+    private static final int N_DIGITS = 1;    // \d+
+    private static final int N_DOT = 2;       // \d+\.
+    private static final int N_COLON1 = 3;    // \d+:
+    private static final int N_DIGITS2 = 4;   // \d+:\d+
+    private static final int N_COLON2 = 5;    // \d+:\d+:
+    private static final int N_DIGITS3 = 6;   // \d+:\d+:\d+
+    private static final int N_FAIL = 7;
+
+    private final Rule[] rules;
+    private final long[] hits;
+    private final long[] misses;
+    private long accepted;
+
+    private final Shape shape = new Shape();
+
+    private PhraseMatcher phrases = PhrasePack.english().compile();
+
+    OptionLabelClassifier(List<? extends Rule> rules)
+    {
+        this.rules = rules.toArray(new Rule[0]);
+        this.hits = new long[this.rules.length];
+        this.misses = new long[this.rules.length];
+    }
+
+    static OptionLabelClassifier standard()
+    {
+        return new OptionLabelClassifier(Arrays.asList(StandardRule.values()));
+    }
+
+    void setPhrases(PhraseMatcher phrases)
+    {
+        this.phrases = phrases;
+    }
+
+    /**
+     * @param text cleaned widget text (see AccessibilityPlusPlugin.clean)
+     * @return true if no rule rejects the text
+     */
+    boolean isOptionLabel(String text)
+    {
+        return text != null && isOptionLabel(text, phrases.match(text));
+    }
+
+    /**
+     * Same as isOptionLabel(String) for callers that already ran the phrase matcher.
+     */
+    boolean isOptionLabel(String text, int phraseMask)
+    {
+        if (text == null)
+        {
+            return false;
+        }
+
+        String s = text.trim();
+        scan(s, shape);
+        shape.phrases = phraseMask;
+
+        for (int i = 0; i < rules.length; i++)
+        {
+            if (rules[i].rejects(s, shape))
+            {
+                hits[i]++;
+                return false;
+            }
+            misses[i]++;
+        }
+
+        accepted++;
+        return true;
+    }
+
+    long hits(Rule rule)
+    {
+        int i = indexOf(rule);
+        return i < 0 ? 0L : hits[i];
+    }
+
+    long misses(Rule rule)
+    {
+        int i = indexOf(rule);
+        return i < 0 ? 0L : misses[i];
+    }
+
+    long accepted()
+    {
+        return accepted;
+    }
+
+    void resetCounters()
+    {
+        Arrays.fill(hits, 0L);
+        Arrays.fill(misses, 0L);
+        accepted = 0L;
+    }
+
+    /**
+     * One line per rule with its counters, for debug logging.
+     */
+    String summary()
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < rules.length; i++)
+        {
+            sb.append(rules[i].name()).append(": hit=").append(hits[i]).append(" miss=").append(misses[i]).append('\n');
+        }
+        sb.append("accepted=").append(accepted);
+        return sb.toString();
+    }
+
+    private int indexOf(Rule rule)
+    {
+        for (int i = 0; i < rules.length; i++)
+        {
+            if (rules[i] == rule)
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Single pass over s filling every shape flag.
+     */
+    static void scan(String s, Shape out)
+    {
+        final int len = s.length();
+        out.length = len;
+
+        int num = N_START;
+
+        // Chat line: 1-12 prefix chars from [A-Za-z0-9 _-], ':', then \s+ and .+
+        boolean prefixOk = true;
+        int colonAt = -1;
+        int lastTerminator = -1;
+
+        for (int i = 0; i < len; i++)
+        {
+            char c = s.charAt(i);
+            boolean digit = c >= '0' && c <= '9';
+
+            switch (num)
+            {
+                case N_START:
+                    num = digit ? N_DIGITS : N_FAIL;
+                    break;
+                case N_DIGITS:
+                    num = digit ? N_DIGITS : c == '.' ? N_DOT : c == ':' ? N_COLON1 : N_FAIL;
+                    break;
+                case N_COLON1:
+                    num = digit ? N_DIGITS2 : N_FAIL;
+                    break;
+                case N_DIGITS2:
+                    num = digit ? N_DIGITS2 : c == ':' ? N_COLON2 : N_FAIL;
+                    break;
+                case N_COLON2:
+                    num = digit ? N_DIGITS3 : N_FAIL;
+                    break;
+                case N_DIGITS3:
+                    num = digit ? N_DIGITS3 : N_FAIL;
+                    break;
+                default:
+                    num = N_FAIL;
+                    break;
+            }
+
+            if (colonAt < 0)
+            {
+                if (c == ':' && prefixOk && i >= 1 && i <= 12)
+                {
+                    colonAt = i;
+                }
+                else if (!isNameChar(c))
+                {
+                    prefixOk = false;
+                }
+            }
+            else if (isLineTerminator(c))
+            {
+                // '.' does not match line terminators, so \s+ has to absorb them.
+                lastTerminator = i;
+            }
+        }
+
+        out.number = num == N_DIGITS;
+        out.listMarker = num == N_DOT;
+        out.timer = num == N_DIGITS2 || num == N_DIGITS3;
+        out.chatLine = colonAt > 0 && isChatTail(s, colonAt + 1, lastTerminator);
+    }
+
+    /**
+     * Does s[from..] match \s+.+ (with '.' excluding line terminators)?
+     */
+    private static boolean isChatTail(String s, int from, int lastTerminator)
+    {
+        final int len = s.length();
+        if (from >= len || !isRegexSpace(s.charAt(from)))
+        {
+            return false;
+        }
+
+        // \s+ must cover every line terminator, then at least one char is left for .+
+        int end = Math.max(from, lastTerminator);
+        for (int i = from; i <= end; i++)
+        {
+            if (!isRegexSpace(s.charAt(i)))
+            {
+                return false;
+            }
+        }
+        return end + 1 < len;
+    }
+
+    private static boolean isNameChar(char c)
+    {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+            || c == ' ' || c == '_' || c == '-';
+    }
+
+    private static boolean isRegexSpace(char c)
+    {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLineTerminator(char c)
+    {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
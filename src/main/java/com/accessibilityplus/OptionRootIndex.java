@@ -0,0 +1,224 @@
+package com.accessibilityplus;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.config.ConfigManager;
+
+/**
+ * Learned index of widget roots that have hosted non-standard option menus.
+ *
+ * Roots are keyed by interface (group) id and ranked by how often they matched, so the
+ * most likely root is tried first. The index is persisted through ConfigManager, which
+ * means the first dialog after a restart is found with a lookup instead of a full scan.
+ *
+ * Not thread-safe; only touched from the client thread.
+ */
+@Slf4j
+class OptionRootIndex
+{
+    static final String CONFIG_KEY = "learnedOptionRoots";
+
+    // Keep the index small: every entry costs one validation walk on a miss.
+    private static final int MAX_ENTRIES = 16;
+
+    // Halve all counts once any entry reaches this, so old habits fade out.
+    private static final int AGE_THRESHOLD = 1 << 16;
+
+    private final ConfigManager configManager;
+
+    private final Map<Integer, List<Entry>> byGroup = new LinkedHashMap<>();
+    private final List<Entry> ranked = new ArrayList<>();
+    private boolean rankDirty = false;
+    private boolean persistDirty = false;
+
+    @Inject
+    OptionRootIndex(ConfigManager configManager)
+    {
+        this.configManager = configManager;
+    }
+
+    static final class Entry
+    {
+        final int group;
+        final int child;
+        private int hits;
+
+        private Entry(int group, int child, int hits)
+        {
+            this.group = group;
+            this.child = child;
+            this.hits = hits;
+        }
+    }
+
+    /**
+     * Entries across all groups, most frequently hit first.
+     * The returned list is owned by the index; do not modify it.
+     */
+    List<Entry> ranked()
+    {
+        if (rankDirty)
+        {
+            ranked.clear();
+            for (List<Entry> entries : byGroup.values())
+            {
+                ranked.addAll(entries);
+            }
+            ranked.sort((a, b) -> Integer.compare(b.hits, a.hits));
+            rankDirty = false;
+        }
+        return ranked;
+    }
+
+    /**
+     * Record that a known root matched again.
+     */
+    void recordHit(Entry e)
+    {
+        e.hits++;
+        rankDirty = true;
+        persistDirty = true;
+
+        if (e.hits >= AGE_THRESHOLD)
+        {
+            for (List<Entry> entries : byGroup.values())
+            {
+                for (Entry x : entries)
+                {
+                    x.hits = Math.max(1, x.hits / 2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a root found by the fallback scan, or bump it if already known.
+     */
+    void learn(int group, int child)
+    {
+        List<Entry> entries = byGroup.computeIfAbsent(group, g -> new ArrayList<>(2));
+        for (Entry e : entries)
+        {
+            if (e.child == child)
+            {
+                recordHit(e);
+                return;
+            }
+        }
+
+        if (size() >= MAX_ENTRIES)
+        {
+            evictLeastUsed();
+            entries = byGroup.computeIfAbsent(group, g -> new ArrayList<>(2));
+        }
+
+        entries.add(new Entry(group, child, 1));
+        rankDirty = true;
+        persistDirty = true;
+
+        // New roots are rare and worth keeping even if the client crashes later.
+        save();
+    }
+
+    void load()
+    {
+        byGroup.clear();
+        rankDirty = true;
+        persistDirty = false;
+
+        String raw = configManager.getConfiguration("accessibilityplus", CONFIG_KEY);
+        if (raw == null || raw.isEmpty())
+        {
+            return;
+        }
+
+        // Format: group:child:hits;group:child:hits;...
+        for (String part : raw.split(";"))
+        {
+            String[] f = part.split(":");
+            if (f.length != 3)
+            {
+                continue;
+            }
+
+            try
+            {
+                int group = Integer.parseInt(f[0]);
+                int child = Integer.parseInt(f[1]);
+                int hits = Math.max(1, Integer.parseInt(f[2]));
+
+                if (size() < MAX_ENTRIES)
+                {
+                    byGroup.computeIfAbsent(group, g -> new ArrayList<>(2)).add(new Entry(group, child, hits));
+                }
+            }
+            catch (NumberFormatException e)
+            {
+                log.debug("Ignoring malformed option root entry: {}", part);
+            }
+        }
+    }
+
+    void save()
+    {
+        if (!persistDirty)
+        {
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (Entry e : ranked())
+        {
+            if (sb.length() > 0)
+            {
+                sb.append(';');
+            }
+            sb.append(e.group).append(':').append(e.child).append(':').append(e.hits);
+        }
+
+        configManager.setConfiguration("accessibilityplus", CONFIG_KEY, sb.toString());
+        persistDirty = false;
+    }
+
+    private int size()
+    {
+        int n = 0;
+        for (List<Entry> entries : byGroup.values())
+        {
+            n += entries.size();
+        }
+        return n;
+    }
+
+    private void evictLeastUsed()
+    {
+        Entry worst = null;
+        for (List<Entry> entries : byGroup.values())
+        {
+            for (Entry e : entries)
+            {
+                if (worst == null || e.hits < worst.hits)
+                {
+                    worst = e;
+                }
+            }
+        }
+
+        if (worst == null)
+        {
+            return;
+        }
+
+        List<Entry> entries = byGroup.get(worst.group);
+        entries.remove(worst);
+        if (entries.isEmpty())
+        {
+            byGroup.remove(worst.group);
+        }
+        rankDirty = true;
+    }
+}
@@ -0,0 +1,428 @@
+package com.accessibilityplus;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.runelite.api.widgets.Widget;
+
+/**
+ * Single-pass, iterative walker for the heuristic option-menu fallback.
+ *
+ * One walk of a root detects the option menu header, collects option candidates and
+ * records the header / "click here to continue" bounds. Children, static children and
+ * dynamic children are all pushed onto a reusable explicit stack; widgets already visited
+ * in the current pass are skipped, so nodes reachable through more than one of those
+ * arrays (or through nested roots) are only looked at once per mode: a widget first seen
+ * inside a static subtree is looked at again when a later walk reaches it as a collecting
+ * node, e.g. when it is itself one of the roots of the pass.
+ *
+ * The header may sit anywhere in the tree, but candidates and continue prompts are only
+ * taken from widgets reached through children and dynamic children, as the separate
+ * header and candidate searches this replaced did. Static subtrees are walked for the
+ * header alone.
+ *
+ * Candidate bounds are worked out from the root's canvas position and each widget's
+ * relative position and its parent's scroll offset, into pooled candidates, so a walk
+ * allocates nothing per candidate. Reused across ticks; only touched from the client
+ * thread.
+ */
+class OptionTreeWalker
+{
+    private static final int MAX_DEPTH = 10;
+
+    // Explicit DFS stack, grown on demand and kept.
+    private Widget[] stack = new Widget[256];
+    private int[] stackDepth = new int[256];
+    private int[] stackX = new int[256]; // canvas x of the parent's content origin
+    private int[] stackY = new int[256];
+    private boolean[] stackCollect = new boolean[256]; // false under a static child
+
+    // Visited set for the current pass: open addressing on (id, index), cleared by bumping the epoch.
+    private long[] seenKeys = new long[1024];
+    private int[] seenEpoch = new int[1024];
+    private boolean[] seenCollect = new boolean[1024]; // seen as a collecting node
+    private int epoch = 1;
+    private int seenCount = 0;
+
+    private PhraseMatcher phrases = PhrasePack.english().compile();
+    private final OptionLabelClassifier labelClassifier = OptionLabelClassifier.standard();
+
+    private final CandidateList found = new CandidateList();
+    private final Rectangle bounds = new Rectangle();
+    private Rectangle anchorBounds;
+
+    /**
+     * Option text and canvas bounds. Pooled: owned by the CandidateList it came from and
+     * overwritten when that list is refilled.
+     */
+    static final class OptionCandidate
+    {
+        String text;
+        final Rectangle bounds = new Rectangle();
+    }
+
+    /**
+     * List of pooled candidates. Clearing keeps the candidate objects for the next fill.
+     */
+    static final class CandidateList
+    {
+        private final List<OptionCandidate> pool = new ArrayList<>();
+        private int size = 0;
+
+        int size()
+        {
+            return size;
+        }
+
+        OptionCandidate get(int i)
+        {
+            return pool.get(i);
+        }
+
+        void clear()
+        {
+            size = 0;
+        }
+
+        void add(String text, Rectangle bounds)
+        {
+            if (size == pool.size())
+            {
+                pool.add(new OptionCandidate());
+            }
+            OptionCandidate c = pool.get(size++);
+            c.text = text;
+            c.bounds.setBounds(bounds);
+        }
+
+        void addAll(CandidateList other)
+        {
+            for (int i = 0; i < other.size; i++)
+            {
+                OptionCandidate c = other.pool.get(i);
+                add(c.text, c.bounds);
+            }
+        }
+    }
+
+    /**
+     * Start a new pass. Widgets seen in earlier walks of the same pass are skipped.
+     */
+    void beginPass()
+    {
+        epoch++;
+        if (epoch == 0)
+        {
+            // Wrapped: stale stamps could alias, so clear them once.
+            Arrays.fill(seenEpoch, 0);
+            epoch = 1;
+        }
+        seenCount = 0;
+    }
+
+    /**
+     * Walk one root.
+     *
+     * @param ignoreA text to never treat as an option (current dialog line)
+     * @param ignoreB text to never treat as an option (current speaker)
+     * @return true if an option menu header was found under this root
+     */
+    boolean walk(Widget root, String ignoreA, String ignoreB)
+    {
+        found.clear();
+        anchorBounds = null;
+
+        if (root == null || root.isHidden())
+        {
+            return false;
+        }
+
+        Rectangle rb = root.getBounds();
+        if (rb == null)
+        {
+            return false;
+        }
+
+        boolean header = false;
+        int sp = 0;
+        push(sp++, root, 0, rb.x - root.getRelativeX(), rb.y - root.getRelativeY(), true);
+
+        while (sp > 0)
+        {
+            sp--;
+            Widget w = stack[sp];
+            int depth = stackDepth[sp];
+            boolean collect = stackCollect[sp];
+            stack[sp] = null;
+
+            if (w == null || w.isHidden() || !markSeen(w, collect))
+            {
+                continue;
+            }
+
+            int x = stackX[sp] + w.getRelativeX();
+            int y = stackY[sp] + w.getRelativeY();
+            bounds.setBounds(x, y, w.getWidth(), w.getHeight());
+
+            String t = AccessibilityPlusPlugin.clean(w.getText());
+            if (!t.isEmpty())
+            {
+                // One pass finds every header / continue / noise phrase.
+                int phraseMask = phrases.match(t);
+
+                if ((phraseMask & PhraseMatcher.HEADER) != 0)
+                {
+                    header = true;
+                    unionAnchor(bounds);
+                }
+                else if (collect && (phraseMask & PhraseMatcher.CONTINUE) != 0)
+                {
+                    unionAnchor(bounds);
+                }
+                else if (collect && !t.equalsIgnoreCase(ignoreA) && !t.equalsIgnoreCase(ignoreB)
+                    && labelClassifier.isOptionLabel(t, phraseMask))
+                {
+                    found.add(t, bounds);
+                }
+            }
+
+            if (depth >= MAX_DEPTH)
+            {
+                continue;
+            }
+
+            // Children are laid out from this widget's top left, shifted by its scroll offset.
+            int cx = x - w.getScrollX();
+            int cy = y - w.getScrollY();
+            sp = pushAll(sp, w.getChildren(), depth + 1, cx, cy, collect);
+            sp = pushAll(sp, w.getStaticChildren(), depth + 1, cx, cy, false);
+            sp = pushAll(sp, w.getDynamicChildren(), depth + 1, cx, cy, collect);
+        }
+
+        return header;
+    }
+
+    /**
+     * Cheap fingerprint of a subtree built from child counts, text hashes, hidden flags and
+     * geometry. No cleaning, lowercasing or classification is done, so this is far cheaper
+     * than walk(); equal fingerprints mean walk() would produce the same result.
+     */
+    long fingerprint(Widget root)
+    {
+        if (root == null)
+        {
+            return 0L;
+        }
+
+        long h = 1125899906842597L;
+
+        // The root's canvas bounds cover moves of the whole subtree (e.g. client resize).
+        Rectangle rb = root.getBounds();
+        if (rb != null)
+        {
+            h = 31 * h + rb.x;
+            h = 31 * h + rb.y;
+            h = 31 * h + rb.width;
+            h = 31 * h + rb.height;
+        }
+
+        int sp = 0;
+        push(sp++, root, 0, 0, 0, true);
+
+        while (sp > 0)
+        {
+            sp--;
+            Widget w = stack[sp];
+            int depth = stackDepth[sp];
+            stack[sp] = null;
+
+            boolean hidden = w.isHidden();
+            h = 31 * h + (hidden ? 1 : 2);
+            if (hidden)
+            {
+                continue;
+            }
+
+            // String caches its hash, so unchanged text costs one field read.
+            String t = w.getText();
+            h = 31 * h + (t == null ? 0 : t.hashCode());
+            h = 31 * h + w.getRelativeX();
+            h = 31 * h + w.getRelativeY();
+            h = 31 * h + w.getWidth();
+            h = 31 * h + w.getHeight();
+            h = 31 * h + w.getScrollX();
+            h = 31 * h + w.getScrollY();
+
+            if (depth >= MAX_DEPTH)
+            {
+                continue;
+            }
+
+            Widget[] children = w.getChildren();
+            Widget[] staticChildren = w.getStaticChildren();
+            Widget[] dyn = w.getDynamicChildren();
+
+            h = 31 * h + (children == null ? -1 : children.length);
+            h = 31 * h + (staticChildren == null ? -1 : staticChildren.length);
+            h = 31 * h + (dyn == null ? -1 : dyn.length);
+
+            sp = pushAll(sp, children, depth + 1, 0, 0, true);
+            sp = pushAll(sp, staticChildren, depth + 1, 0, 0, true);
+            sp = pushAll(sp, dyn, depth + 1, 0, 0, true);
+        }
+
+        return h;
+    }
+
+    /**
+     * Swap the phrase set used for headers, continue prompts and chat noise.
+     */
+    void setPhrases(PhraseMatcher phrases)
+    {
+        this.phrases = phrases;
+        labelClassifier.setPhrases(phrases);
+    }
+
+    /**
+     * Classifier used for candidate texts; exposed for its per-rule counters.
+     */
+    OptionLabelClassifier labelClassifier()
+    {
+        return labelClassifier;
+    }
+
+    /**
+     * Candidates from the last walk, in visit order. Owned by the walker and refilled by the
+     * next walk; copy them to keep them.
+     */
+    CandidateList candidates()
+    {
+        return found;
+    }
+
+    /**
+     * Union of header / continue widget bounds from the last walk, or null.
+     */
+    Rectangle anchorBounds()
+    {
+        return anchorBounds;
+    }
+
+    private int pushAll(int sp, Widget[] children, int depth, int x, int y, boolean collect)
+    {
+        if (children == null)
+        {
+            return sp;
+        }
+        for (Widget c : children)
+        {
+            if (c != null)
+            {
+                push(sp++, c, depth, x, y, collect);
+            }
+        }
+        return sp;
+    }
+
+    private void push(int sp, Widget w, int depth, int x, int y, boolean collect)
+    {
+        if (sp == stack.length)
+        {
+            stack = Arrays.copyOf(stack, sp * 2);
+            stackDepth = Arrays.copyOf(stackDepth, sp * 2);
+            stackX = Arrays.copyOf(stackX, sp * 2);
+            stackY = Arrays.copyOf(stackY, sp * 2);
+            stackCollect = Arrays.copyOf(stackCollect, sp * 2);
+        }
+        stack[sp] = w;
+        stackDepth[sp] = depth;
+        stackX[sp] = x;
+        stackY[sp] = y;
+        stackCollect[sp] = collect;
+    }
+
+    /**
+     * @return true if the widget had not been seen yet in this pass, or only without collect
+     */
+    private boolean markSeen(Widget w, boolean collect)
+    {
+        // Dynamic children share their parent's id, so the index is part of the key.
+        long key = ((long) w.getId() << 32) | (w.getIndex() & 0xffffffffL);
+
+        if ((seenCount + 1) * 2 > seenKeys.length)
+        {
+            growSeen();
+        }
+
+        int mask = seenKeys.length - 1;
+        int slot = (int) (mix(key) & mask);
+        while (seenEpoch[slot] == epoch)
+        {
+            if (seenKeys[slot] == key)
+            {
+                if (collect && !seenCollect[slot])
+                {
+                    seenCollect[slot] = true;
+                    return true;
+                }
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        seenEpoch[slot] = epoch;
+        seenKeys[slot] = key;
+        seenCollect[slot] = collect;
+        seenCount++;
+        return true;
+    }
+
+    private void growSeen()
+    {
+        long[] oldKeys = seenKeys;
+        int[] oldEpoch = seenEpoch;
+        boolean[] oldCollect = seenCollect;
+
+        seenKeys = new long[oldKeys.length * 2];
+        seenEpoch = new int[oldKeys.length * 2];
+        seenCollect = new boolean[oldKeys.length * 2];
+
+        int mask = seenKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldEpoch[i] != epoch)
+            {
+                continue;
+            }
+            int slot = (int) (mix(oldKeys[i]) & mask);
+            while (seenEpoch[slot] == epoch)
+            {
+                slot = (slot + 1) & mask;
+            }
+            seenEpoch[slot] = epoch;
+            seenKeys[slot] = oldKeys[i];
+            seenCollect[slot] = oldCollect[i];
+        }
+    }
+
+    private static long mix(long k)
+    {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private void unionAnchor(Rectangle b)
+    {
+        if (anchorBounds == null)
+        {
+            anchorBounds = new Rectangle(b);
+        }
+        else
+        {
+            anchorBounds.add(b);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.accessibilityplus;
+
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseWheelEvent;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.client.input.KeyListener;
+import net.runelite.client.input.MouseWheelListener;
+
+/**
+ * Scroll position of the dialog option list.
+ *
+ * The mouse wheel over the panel moves one row at a time and Page Up / Page Down move a
+ * page. Input arrives on the AWT thread and only records the requested first row; the
+ * overlay clamps it against the current layout while rendering and reports back what is
+ * on screen. The position resets whenever a different option list is shown.
+ */
+@Singleton
+class OptionViewport implements KeyListener, MouseWheelListener
+{
+    private volatile int firstRow = 0;
+
+    // What the overlay last drew; null when no scrollable list is on screen.
+    private volatile DialogLayout shown;
+    private volatile int pageRows = 1;
+
+    // Render thread only.
+    private String optionsKey = "";
+
+    @Inject
+    OptionViewport()
+    {
+    }
+
+    /**
+     * Called by the overlay each frame with the layout about to be drawn.
+     *
+     * @return the first option row to draw
+     */
+    int firstRow(DialogSnapshot snapshot, DialogLayout layout)
+    {
+        if (!optionsKey.equals(snapshot.getOptionsKey()))
+        {
+            optionsKey = snapshot.getOptionsKey();
+            firstRow = 0;
+        }
+
+        int requested = firstRow;
+        int first = Math.max(0, Math.min(requested, layout.maxFirstRow));
+        if (first != requested)
+        {
+            firstRow = first;
+        }
+
+        if (layout.maxFirstRow > 0)
+        {
+            pageRows = Math.max(1, layout.visibleEnd(first) - first);
+            shown = layout;
+        }
+        else
+        {
+            shown = null;
+        }
+        return first;
+    }
+
+    /**
+     * Called by the overlay when it draws nothing.
+     */
+    void hidden()
+    {
+        shown = null;
+    }
+
+    @Override
+    public MouseWheelEvent mouseWheelMoved(MouseWheelEvent e)
+    {
+        DialogLayout layout = shown;
+        // The layout is in device pixels; mouse events are not.
+        if (layout != null && layout.panel.contains(e.getX() * layout.scale, e.getY() * layout.scale))
+        {
+            firstRow = Math.max(0, Math.min(layout.maxFirstRow, firstRow + e.getWheelRotation()));
+            e.consume();
+        }
+        return e;
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e)
+    {
+        DialogLayout layout = shown;
+        if (layout == null)
+        {
+            return;
+        }
+
+        if (e.getKeyCode() == KeyEvent.VK_PAGE_DOWN)
+        {
+            firstRow = Math.min(layout.maxFirstRow, firstRow + pageRows);
+            e.consume();
+        }
+        else if (e.getKeyCode() == KeyEvent.VK_PAGE_UP)
+        {
+            firstRow = Math.max(0, firstRow - pageRows);
+            e.consume();
+        }
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e)
+    {
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e)
+    {
+    }
+}
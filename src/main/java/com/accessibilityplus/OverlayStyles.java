@@ -0,0 +1,232 @@
+package com.accessibilityplus;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Paint;
+import java.awt.Stroke;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Colors, paints and strokes shared by the overlays.
+ *
+ * Each style is built on first use and handed back unchanged while its key (theme, opacity
+ * and, for gradients, the panel geometry) stays the same, so a steady-state frame allocates
+ * none of them. The plugin calls invalidate() on every config change of ours; the next
+ * lookup then rebuilds.
+ *
+ * Lookups happen on the render thread; invalidate() may come from any thread.
+ */
+@Singleton
+class OverlayStyles
+{
+    static final Stroke MINIMAP_STROKE = new BasicStroke(2f);
+
+    /**
+     * Everything DialogTextOverlay paints with.
+     */
+    static final class Palette
+    {
+        final Paint panelPaint;
+        final Paint backdropPaint;
+        final Color flatPanelPaint; // solid stand-in for panelPaint at reduced quality
+
+        final Color border;
+        final Color innerBorder;
+
+        final Color dialogText;
+        final Color speakerText;
+
+        final Color optionText;
+
+        // Row style paints
+        final Color rowFill;
+        final Color rowOutline;
+        final Color rowDivider;
+
+        final Color textShadow; // may be null
+
+        // Key
+        private final AccessibilityPlusConfig.DialogTheme theme;
+        private final int opacity;
+        private final int x;
+        private final int y;
+        private final int h;
+
+        private Palette(
+                AccessibilityPlusConfig.DialogTheme theme,
+                int opacity,
+                int x,
+                int y,
+                int h,
+                Paint panelPaint,
+                Paint backdropPaint,
+                Color flatPanelPaint,
+                Color border,
+                Color innerBorder,
+                Color dialogText,
+                Color speakerText,
+                Color optionText,
+                Color rowFill,
+                Color rowOutline,
+                Color rowDivider,
+                Color textShadow)
+        {
+            this.theme = theme;
+            this.opacity = opacity;
+            this.x = x;
+            this.y = y;
+            this.h = h;
+            this.panelPaint = panelPaint;
+            this.backdropPaint = backdropPaint;
+            this.flatPanelPaint = flatPanelPaint;
+            this.border = border;
+            this.innerBorder = innerBorder;
+            this.dialogText = dialogText;
+            this.speakerText = speakerText;
+            this.optionText = optionText;
+            this.rowFill = rowFill;
+            this.rowOutline = rowOutline;
+            this.rowDivider = rowDivider;
+            this.textShadow = textShadow;
+        }
+
+        private boolean matches(AccessibilityPlusConfig.DialogTheme theme, int opacity, int x, int y, int h)
+        {
+            if (this.theme != theme || this.opacity != opacity)
+            {
+                return false;
+            }
+            // Only the parchment gradient depends on where the panel is.
+            return theme != AccessibilityPlusConfig.DialogTheme.PARCHMENT
+                || (this.x == x && this.y == y && this.h == h);
+        }
+    }
+
+    /**
+     * Fill and outline for the minimap shapes at one opacity.
+     */
+    static final class MinimapColors
+    {
+        final Color outline;
+        final Color fill;
+
+        private final int alpha;
+
+        private MinimapColors(int alpha)
+        {
+            this.alpha = alpha;
+
+            // Very high contrast: white outline, black fill.
+            this.outline = new Color(255, 255, 255, alpha);
+            this.fill = new Color(0, 0, 0, alpha);
+        }
+    }
+
+    // Bumped by invalidate(); cached styles built under an older generation are rebuilt.
+    private volatile int generation = 0;
+
+    private Palette palette;
+    private int paletteGeneration = -1;
+
+    private MinimapColors minimapColors;
+    private int minimapGeneration = -1;
+
+    @Inject
+    OverlayStyles()
+    {
+    }
+
+    /**
+     * Drop every cached style; called when our config changes.
+     */
+    void invalidate()
+    {
+        generation++;
+    }
+
+    Palette palette(AccessibilityPlusConfig.DialogTheme theme, int x, int y, int h, int opacity)
+    {
+        int gen = generation;
+        int a = clamp(opacity, 40, 255);
+        int hh = Math.max(1, h);
+
+        Palette p = palette;
+        if (p == null || paletteGeneration != gen || !p.matches(theme, a, x, y, hh))
+        {
+            p = build(theme, x, y, hh, a);
+            palette = p;
+            paletteGeneration = gen;
+        }
+        return p;
+    }
+
+    MinimapColors minimapColors(int alpha)
+    {
+        int gen = generation;
+
+        MinimapColors c = minimapColors;
+        if (c == null || minimapGeneration != gen || c.alpha != alpha)
+        {
+            c = new MinimapColors(alpha);
+            minimapColors = c;
+            minimapGeneration = gen;
+        }
+        return c;
+    }
+
+    private static Palette build(AccessibilityPlusConfig.DialogTheme theme, int x, int y, int h, int a)
+    {
+        if (theme == AccessibilityPlusConfig.DialogTheme.PARCHMENT)
+        {
+            // Warmer/darker parchment closer to native chatbox
+            Color top = new Color(214, 203, 168, a);
+            Color bottom = new Color(198, 185, 150, a);
+            GradientPaint gp = new GradientPaint(x, y, top, x, y + h, bottom);
+            Color flat = new Color(206, 194, 159, a);
+
+            // Borders/text: full alpha only
+            Color border = new Color(112, 98, 68);
+            Color innerBorder = new Color(235, 226, 198);
+
+            Color dialogText = new Color(40, 34, 24);
+            Color speaker = new Color(255, 184, 0);
+            Color optionText = new Color(40, 34, 24);
+
+            // Rows: slightly darker inset tone
+            Color rowFill = new Color(205, 193, 160, a);
+            Color rowOutline = new Color(140, 126, 92);   // subtle
+            Color rowDivider = new Color(170, 158, 126);  // subtle
+
+            Color shadow = new Color(120, 110, 90);
+
+            return new Palette(theme, a, x, y, h,
+                gp, gp, flat, border, innerBorder, dialogText, speaker, optionText, rowFill, rowOutline, rowDivider, shadow);
+        }
+
+        // BLACK_PANEL (default)
+        Color bg = new Color(15, 15, 15, a);
+
+        Color border = new Color(235, 235, 235);
+        Color innerBorder = new Color(60, 60, 60);
+
+        Color dialogText = new Color(235, 235, 235);
+        Color speaker = new Color(255, 215, 0);
+        Color optionText = new Color(235, 235, 235);
+
+        Color rowFill = new Color(30, 30, 30, a);
+        Color rowOutline = new Color(80, 80, 80);
+        Color rowDivider = new Color(70, 70, 70);
+
+        Color shadow = new Color(0, 0, 0);
+
+        return new Palette(theme, a, x, y, h,
+            bg, bg, bg, border, innerBorder, dialogText, speaker, optionText, rowFill, rowOutline, rowDivider, shadow);
+    }
+
+    private static int clamp(int v, int lo, int hi)
+    {
+        return Math.max(lo, Math.min(hi, v));
+    }
+}
@@ -0,0 +1,203 @@
+package com.accessibilityplus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Aho-Corasick matcher for the fixed phrases the dialog heuristics look for (option menu
+ * headers, "click here to continue", chat noise).
+ *
+ * Built once from a PhrasePack into a dense DFA over the characters that occur in the
+ * phrases. match() makes one case-insensitive pass over a string and returns a bitmask of
+ * the categories whose phrases occur anywhere in it, replacing one contains() per phrase.
+ *
+ * Immutable after construction, so it can be swapped by reference.
+ */
+final class PhraseMatcher
+{
+    static final int HEADER = 1;
+    static final int CONTINUE = 1 << 1;
+    static final int NOISE = 1 << 2;
+
+    // Character classes: 0 is "not in any phrase", which always leads back to the root.
+    private final int[] asciiClass = new int[128];
+    private final char[] otherChars;
+    private final int[] otherClass;
+    private final int classCount;
+
+    private final int[] delta;
+    private final int[] output;
+
+    private PhraseMatcher(Map<String, Integer> phrases)
+    {
+        // Alphabet
+        TreeSet<Character> chars = new TreeSet<>();
+        for (String p : phrases.keySet())
+        {
+            for (int i = 0; i < p.length(); i++)
+            {
+                chars.add(p.charAt(i));
+            }
+        }
+
+        List<Character> other = new ArrayList<>();
+        int cls = 1;
+        for (char c : chars)
+        {
+            if (c < 128)
+            {
+                asciiClass[c] = cls++;
+            }
+            else
+            {
+                other.add(c);
+            }
+        }
+        otherChars = new char[other.size()];
+        otherClass = new int[other.size()];
+        for (int i = 0; i < otherChars.length; i++)
+        {
+            otherChars[i] = other.get(i);
+            otherClass[i] = cls++;
+        }
+        classCount = cls;
+
+        // Trie
+        List<int[]> next = new ArrayList<>();
+        List<Integer> out = new ArrayList<>();
+        next.add(newRow());
+        out.add(0);
+
+        for (Map.Entry<String, Integer> e : phrases.entrySet())
+        {
+            String p = e.getKey();
+            int state = 0;
+            for (int i = 0; i < p.length(); i++)
+            {
+                int c = classOf(p.charAt(i));
+                int[] row = next.get(state);
+                if (row[c] <= 0)
+                {
+                    row[c] = next.size();
+                    next.add(newRow());
+                    out.add(0);
+                }
+                state = row[c];
+            }
+            out.set(state, out.get(state) | e.getValue());
+        }
+
+        // Failure links folded into a full transition table (BFS order).
+        int n = next.size();
+        delta = new int[n * classCount];
+        output = new int[n];
+        int[] fail = new int[n];
+
+        for (int s = 0; s < n; s++)
+        {
+            output[s] = out.get(s);
+        }
+
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int[] root = next.get(0);
+        for (int c = 0; c < classCount; c++)
+        {
+            int t = root[c];
+            if (t > 0)
+            {
+                delta[c] = t;
+                fail[t] = 0;
+                queue.add(t);
+            }
+        }
+
+        while (!queue.isEmpty())
+        {
+            int s = queue.poll();
+            output[s] |= output[fail[s]];
+
+            int[] row = next.get(s);
+            for (int c = 0; c < classCount; c++)
+            {
+                int t = row[c];
+                if (t > 0)
+                {
+                    delta[s * classCount + c] = t;
+                    fail[t] = delta[fail[s] * classCount + c];
+                    queue.add(t);
+                }
+                else
+                {
+                    delta[s * classCount + c] = delta[fail[s] * classCount + c];
+                }
+            }
+        }
+    }
+
+    /**
+     * @param phrases phrase to category bits; phrases are matched case-insensitively
+     */
+    static PhraseMatcher compile(Map<String, Integer> phrases)
+    {
+        Map<String, Integer> lowered = new HashMap<>();
+        for (Map.Entry<String, Integer> e : phrases.entrySet())
+        {
+            String p = lower(e.getKey());
+            if (!p.isEmpty())
+            {
+                lowered.merge(p, e.getValue(), (a, b) -> a | b);
+            }
+        }
+        return new PhraseMatcher(lowered);
+    }
+
+    /**
+     * @return bitmask of the categories with at least one phrase occurring in s
+     */
+    int match(String s)
+    {
+        if (s == null)
+        {
+            return 0;
+        }
+
+        int state = 0;
+        int mask = 0;
+        for (int i = 0, len = s.length(); i < len; i++)
+        {
+            state = delta[state * classCount + classOf(Character.toLowerCase(s.charAt(i)))];
+            mask |= output[state];
+        }
+        return mask;
+    }
+
+    private int classOf(char c)
+    {
+        if (c < 128)
+        {
+            return asciiClass[c];
+        }
+        int i = Arrays.binarySearch(otherChars, c);
+        return i < 0 ? 0 : otherClass[i];
+    }
+
+    private int[] newRow()
+    {
+        return new int[classCount];
+    }
+
+    private static String lower(String s)
+    {
+        char[] out = new char[s.length()];
+        for (int i = 0; i < out.length; i++)
+        {
+            out[i] = Character.toLowerCase(s.charAt(i));
+        }
+        return new String(out);
+    }
+}
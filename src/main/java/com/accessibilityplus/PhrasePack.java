@@ -0,0 +1,90 @@
+package com.accessibilityplus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The phrases the dialog heuristics recognise, grouped by what they mean.
+ *
+ * The built-in pack is English. Users on other client languages (or with odd interfaces)
+ * can add their own phrases from the config; the pack is then compiled into a single
+ * PhraseMatcher, so more phrases do not mean more scans per widget.
+ */
+final class PhrasePack
+{
+    private static final PhrasePack ENGLISH = new PhrasePack(
+        Arrays.asList(
+            "select an option",
+            "what would you like to say",
+            "what would you like to do",
+            "what would you like to ask"),
+        Collections.singletonList("click here to continue"),
+        Collections.singletonList("press enter to chat"));
+
+    private final List<String> headers;
+    private final List<String> continues;
+    private final List<String> noise;
+
+    private PhrasePack(List<String> headers, List<String> continues, List<String> noise)
+    {
+        this.headers = headers;
+        this.continues = continues;
+        this.noise = noise;
+    }
+
+    static PhrasePack english()
+    {
+        return ENGLISH;
+    }
+
+    /**
+     * This pack plus user phrases. Each argument is a comma or newline separated list.
+     */
+    PhrasePack withExtra(String extraHeaders, String extraContinues, String extraNoise)
+    {
+        return new PhrasePack(
+            concat(headers, extraHeaders),
+            concat(continues, extraContinues),
+            concat(noise, extraNoise));
+    }
+
+    PhraseMatcher compile()
+    {
+        Map<String, Integer> phrases = new LinkedHashMap<>();
+        put(phrases, headers, PhraseMatcher.HEADER);
+        put(phrases, continues, PhraseMatcher.CONTINUE);
+        put(phrases, noise, PhraseMatcher.NOISE);
+        return PhraseMatcher.compile(phrases);
+    }
+
+    private static void put(Map<String, Integer> phrases, List<String> list, int category)
+    {
+        for (String p : list)
+        {
+            phrases.merge(p, category, (a, b) -> a | b);
+        }
+    }
+
+    private static List<String> concat(List<String> base, String extra)
+    {
+        if (extra == null || extra.trim().isEmpty())
+        {
+            return base;
+        }
+
+        List<String> out = new ArrayList<>(base);
+        for (String p : extra.split("[,\\n]"))
+        {
+            String t = p.trim();
+            if (!t.isEmpty())
+            {
+                out.add(t);
+            }
+        }
+        return out;
+    }
+}
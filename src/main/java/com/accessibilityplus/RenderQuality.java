@@ -0,0 +1,170 @@
+package com.accessibilityplus;
+
+import java.util.Arrays;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Adaptive quality for the overlays, driven by how long they take to draw.
+ *
+ * Overlays report their render time with record(); the plugin calls frameStarted() once per
+ * client frame, which closes the previous frame's total into a rolling window. When the
+ * window average stays over the configured budget, quality steps down one level: first text
+ * shadows, then gradients and rounded corners, then antialiasing, then the number of
+ * minimap shapes. It steps back up one level at a time once the average has stayed under
+ * half the budget for several windows. The magnifier does not report: no level reduces it.
+ *
+ * Only touched from the client thread, except level, which may be read from anywhere for
+ * diagnostics.
+ */
+@Slf4j
+@Singleton
+class RenderQuality
+{
+    /**
+     * Quality levels, best first. Each level keeps the reductions of the ones before it.
+     */
+    enum Level
+    {
+        FULL,
+        NO_SHADOWS,
+        FLAT,
+        NO_ANTIALIAS,
+        ENTITY_CAP;
+
+        boolean shadows()
+        {
+            return this == FULL;
+        }
+
+        // Gradient panel fill and rounded corners.
+        boolean gradients()
+        {
+            return ordinal() < FLAT.ordinal();
+        }
+
+        boolean antialias()
+        {
+            return ordinal() < NO_ANTIALIAS.ordinal();
+        }
+
+        /**
+         * @return the most shapes of each kind to draw on the minimap
+         */
+        int entityCap()
+        {
+            return this == ENTITY_CAP ? ENTITY_CAP_SHAPES : Integer.MAX_VALUE;
+        }
+    }
+
+    // Most shapes of each kind drawn on the minimap at ENTITY_CAP.
+    static final int ENTITY_CAP_SHAPES = 64;
+
+    // Frames per rolling window; also the minimum frames between two steps down.
+    static final int WINDOW = 60;
+
+    // Windows in a row under half the budget needed before stepping back up.
+    static final int RECOVER_WINDOWS = 3;
+
+    private final AccessibilityPlusConfig config;
+
+    @Getter
+    private volatile Level level = Level.FULL;
+
+    private long frameNanos = 0L;
+    private final long[] window = new long[WINDOW];
+    private int windowPos = 0;
+    private int windowFilled = 0;
+    private long windowSum = 0L;
+    private int framesSinceChange = 0;
+    private int quietFrames = 0; // consecutive frames with the average under half the budget
+
+    @Inject
+    RenderQuality(AccessibilityPlusConfig config)
+    {
+        this.config = config;
+    }
+
+    /**
+     * Add time spent drawing an overlay in the current frame.
+     */
+    void record(long nanos)
+    {
+        frameNanos += nanos;
+    }
+
+    /**
+     * Close the previous frame: push its render time into the window and adjust the level.
+     */
+    void frameStarted()
+    {
+        if (!config.adaptiveQuality())
+        {
+            if (level != Level.FULL)
+            {
+                reset();
+            }
+            frameNanos = 0L;
+            return;
+        }
+
+        windowSum += frameNanos - window[windowPos];
+        window[windowPos] = frameNanos;
+        windowPos = (windowPos + 1) % WINDOW;
+        windowFilled = Math.min(WINDOW, windowFilled + 1);
+        frameNanos = 0L;
+        framesSinceChange++;
+
+        if (windowFilled < WINDOW)
+        {
+            return;
+        }
+
+        long budget = config.renderBudgetMicros() * 1000L;
+        long average = windowSum / WINDOW;
+        Level[] levels = Level.values();
+
+        if (average > budget)
+        {
+            quietFrames = 0;
+            if (framesSinceChange >= WINDOW && level.ordinal() < levels.length - 1)
+            {
+                setLevel(levels[level.ordinal() + 1], average);
+            }
+        }
+        else if (average < budget / 2)
+        {
+            quietFrames++;
+            if (quietFrames >= WINDOW * RECOVER_WINDOWS && level.ordinal() > 0)
+            {
+                setLevel(levels[level.ordinal() - 1], average);
+            }
+        }
+        else
+        {
+            quietFrames = 0;
+        }
+    }
+
+    void reset()
+    {
+        level = Level.FULL;
+        Arrays.fill(window, 0L);
+        windowPos = 0;
+        windowFilled = 0;
+        windowSum = 0L;
+        frameNanos = 0L;
+        framesSinceChange = 0;
+        quietFrames = 0;
+    }
+
+    private void setLevel(Level next, long averageNanos)
+    {
+        log.debug("Overlay render quality {} -> {} (avg {} us per frame)", level, next, averageNanos / 1000);
+        level = next;
+        framesSinceChange = 0;
+        quietFrames = 0;
+    }
+}
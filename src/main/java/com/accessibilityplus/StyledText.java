@@ -0,0 +1,323 @@
+package com.accessibilityplus;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.font.TextAttribute;
+import java.text.AttributedString;
+import java.util.Arrays;
+
+/**
+ * Dialog text with its color runs and line breaks kept.
+ *
+ * text is exactly what AccessibilityPlusPlugin.clean() returns for the same raw string, so
+ * keys, TTS and classification are unaffected. On top of that, each &lt;col=rrggbb&gt; tag
+ * starts a colored run (until &lt;/col&gt; or the next color) and each &lt;br&gt; marks a
+ * hard line break at the space it was collapsed into.
+ *
+ * Immutable.
+ */
+public final class StyledText
+{
+    static final int DEFAULT_COLOR = -1;
+
+    private static final int[] NONE = new int[0];
+
+    private final String text;
+
+    // Run i covers [runStarts[i], runStarts[i + 1]) in color runColors[i] (or default).
+    private final int[] runStarts;
+    private final int[] runColors;
+
+    // Indices of spaces in text that were <br> tags.
+    private final int[] breaks;
+
+    private StyledText(String text, int[] runStarts, int[] runColors, int[] breaks)
+    {
+        this.text = text;
+        this.runStarts = runStarts;
+        this.runColors = runColors;
+        this.breaks = breaks;
+    }
+
+    static StyledText plain(String text)
+    {
+        return new StyledText(text == null ? "" : text, NONE, NONE, NONE);
+    }
+
+    /**
+     * Parse widget text in one pass, mirroring TextSanitizer.sanitize for the plain text.
+     */
+    static StyledText parse(String raw)
+    {
+        if (raw == null || raw.isEmpty())
+        {
+            return plain("");
+        }
+
+        final int len = raw.length();
+        char[] buf = new char[len];
+        int[] starts = new int[4];
+        int[] colors = new int[4];
+        int runs = 0;
+        int[] brk = new int[2];
+        int breakCount = 0;
+
+        int n = 0;
+        boolean inSpace = false;
+        boolean noCloseAhead = false;
+        int color = DEFAULT_COLOR;
+        int runColor = DEFAULT_COLOR;
+
+        for (int i = 0; i < len; i++)
+        {
+            char c = raw.charAt(i);
+            boolean lineBreak = false;
+
+            if (c == '<' && !noCloseAhead)
+            {
+                int close = raw.indexOf('>', i + 1);
+                if (close < 0)
+                {
+                    noCloseAhead = true;
+                }
+                else
+                {
+                    int tagColor = tagColor(raw, i + 1, close);
+                    if (tagColor != Integer.MIN_VALUE)
+                    {
+                        color = tagColor;
+                    }
+                    lineBreak = close - i == 3 && (raw.regionMatches(true, i + 1, "br", 0, 2));
+                    c = ' ';
+                    i = close;
+                }
+            }
+            else if (c == '\u00A0')
+            {
+                c = ' ';
+            }
+
+            // Leading whitespace is dropped, like trim().
+            if (n == 0 && c <= ' ')
+            {
+                continue;
+            }
+
+            if (isRegexSpace(c))
+            {
+                if (!inSpace)
+                {
+                    buf[n++] = ' ';
+                    inSpace = true;
+                }
+                if (lineBreak && (breakCount == 0 || brk[breakCount - 1] != n - 1))
+                {
+                    if (breakCount == brk.length)
+                    {
+                        brk = Arrays.copyOf(brk, breakCount * 2);
+                    }
+                    brk[breakCount++] = n - 1;
+                }
+                continue;
+            }
+
+            if (color != runColor || (runs == 0 && color != DEFAULT_COLOR))
+            {
+                if (runs == starts.length)
+                {
+                    starts = Arrays.copyOf(starts, runs * 2);
+                    colors = Arrays.copyOf(colors, runs * 2);
+                }
+                starts[runs] = n;
+                colors[runs] = color;
+                runs++;
+                runColor = color;
+            }
+
+            inSpace = false;
+            buf[n++] = c;
+        }
+
+        // Trailing whitespace, and any break in it, is dropped like trim().
+        while (n > 0 && buf[n - 1] <= ' ')
+        {
+            n--;
+        }
+        while (breakCount > 0 && brk[breakCount - 1] >= n)
+        {
+            breakCount--;
+        }
+        while (runs > 0 && starts[runs - 1] >= n)
+        {
+            runs--;
+        }
+
+        String text = new String(buf, 0, n);
+        if (runs == 1 && colors[0] == DEFAULT_COLOR)
+        {
+            runs = 0;
+        }
+
+        return new StyledText(
+            text,
+            runs == 0 ? NONE : Arrays.copyOf(starts, runs),
+            runs == 0 ? NONE : Arrays.copyOf(colors, runs),
+            breakCount == 0 ? NONE : Arrays.copyOf(brk, breakCount));
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+
+    /**
+     * True when there is nothing to style: no color runs and no hard breaks.
+     */
+    public boolean isPlain()
+    {
+        return runStarts.length == 0 && breaks.length == 0;
+    }
+
+    int[] breaks()
+    {
+        return breaks;
+    }
+
+    /**
+     * Does any character in [from, to) have a non-default color?
+     */
+    boolean hasColor(int from, int to)
+    {
+        for (int i = 0; i < runStarts.length; i++)
+        {
+            int end = i + 1 < runStarts.length ? runStarts[i + 1] : text.length();
+            if (runColors[i] != DEFAULT_COLOR && runStarts[i] < to && end > from)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * [from, to) as an AttributedString in font, with FOREGROUND set on colored runs only.
+     * Uncolored characters take the Graphics color when the layout is drawn.
+     */
+    AttributedString attributed(int from, int to, Font font)
+    {
+        AttributedString as = new AttributedString(text.substring(from, to));
+        as.addAttribute(TextAttribute.FONT, font);
+
+        for (int i = 0; i < runStarts.length; i++)
+        {
+            if (runColors[i] == DEFAULT_COLOR)
+            {
+                continue;
+            }
+            int s = Math.max(from, runStarts[i]);
+            int e = Math.min(to, i + 1 < runStarts.length ? runStarts[i + 1] : text.length());
+            if (s < e)
+            {
+                as.addAttribute(TextAttribute.FOREGROUND, new Color(runColors[i]), s - from, e - from);
+            }
+        }
+        return as;
+    }
+
+    /**
+     * prefix + this, with runs and breaks shifted. The prefix is uncolored.
+     */
+    StyledText prefixed(String prefix)
+    {
+        int k = prefix.length();
+        if (isPlain())
+        {
+            return plain(prefix + text);
+        }
+
+        int[] starts = new int[runStarts.length + 1];
+        int[] colors = new int[runColors.length + 1];
+        starts[0] = 0;
+        colors[0] = DEFAULT_COLOR;
+        for (int i = 0; i < runStarts.length; i++)
+        {
+            starts[i + 1] = runStarts[i] + k;
+            colors[i + 1] = runColors[i];
+        }
+
+        int[] brk = new int[breaks.length];
+        for (int i = 0; i < breaks.length; i++)
+        {
+            brk[i] = breaks[i] + k;
+        }
+        return new StyledText(prefix + text, starts, colors, brk);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (!(o instanceof StyledText))
+        {
+            return false;
+        }
+        StyledText s = (StyledText) o;
+        return text.equals(s.text)
+            && Arrays.equals(runStarts, s.runStarts)
+            && Arrays.equals(runColors, s.runColors)
+            && Arrays.equals(breaks, s.breaks);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int h = text.hashCode();
+        h = 31 * h + Arrays.hashCode(runStarts);
+        h = 31 * h + Arrays.hashCode(runColors);
+        h = 31 * h + Arrays.hashCode(breaks);
+        return h;
+    }
+
+    @Override
+    public String toString()
+    {
+        return text;
+    }
+
+    /**
+     * @return the color set by a col / /col tag in raw[from, to), DEFAULT_COLOR for a reset,
+     *         or Integer.MIN_VALUE if the tag is not a color tag
+     */
+    private static int tagColor(String raw, int from, int to)
+    {
+        if (raw.regionMatches(true, from, "/col", 0, 4) && to - from == 4)
+        {
+            return DEFAULT_COLOR;
+        }
+        if (!raw.regionMatches(true, from, "col=", 0, 4))
+        {
+            return Integer.MIN_VALUE;
+        }
+
+        int rgb = 0;
+        int digits = 0;
+        for (int i = from + 4; i < to; i++)
+        {
+            int d = Character.digit(raw.charAt(i), 16);
+            if (d < 0 || ++digits > 6)
+            {
+                return Integer.MIN_VALUE;
+            }
+            rgb = (rgb << 4) | d;
+        }
+        return digits == 0 ? Integer.MIN_VALUE : rgb;
+    }
+
+    private static boolean isRegexSpace(char c)
+    {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,162 @@
+package com.accessibilityplus;
+
+/**
+ * Single-pass replacement for the old regex based clean():
+ *
+ *   s.replaceAll("<[^>]*>", " ").replace('\u00A0', ' ').trim().replaceAll("\\s+", " ")
+ *
+ * Tags become a space, NBSP becomes a space, the ends are trimmed and whitespace runs are
+ * collapsed, all in one scan into a reusable buffer. Results are kept in a small
+ * direct-mapped cache keyed by the raw string, so a widget text that did not change is
+ * returned from the cache (usually by identity) instead of being scanned again.
+ * Strings that need no changes are returned as-is without copying.
+ */
+final class TextSanitizer
+{
+    private static final int CACHE_SIZE = 512; // power of two
+
+    private static final class Entry
+    {
+        final String raw;
+        final String clean;
+
+        Entry(String raw, String clean)
+        {
+            this.raw = raw;
+            this.clean = clean;
+        }
+    }
+
+    private final Entry[] cache = new Entry[CACHE_SIZE];
+    private char[] buf = new char[256];
+
+    private int hits;
+    private int misses;
+
+    synchronized String clean(String raw)
+    {
+        if (raw == null)
+        {
+            return "";
+        }
+        if (raw.isEmpty())
+        {
+            return raw;
+        }
+
+        int h = raw.hashCode();
+        int slot = (h ^ (h >>> 16)) & (CACHE_SIZE - 1);
+
+        Entry e = cache[slot];
+        if (e != null && (e.raw == raw || (e.raw.hashCode() == h && e.raw.equals(raw))))
+        {
+            hits++;
+            return e.clean;
+        }
+
+        misses++;
+        String out = sanitize(raw);
+        cache[slot] = new Entry(raw, out);
+        return out;
+    }
+
+    synchronized int hits()
+    {
+        return hits;
+    }
+
+    synchronized int misses()
+    {
+        return misses;
+    }
+
+    /**
+     * The uncached scan. Uses the shared buffer, so callers must hold the lock or own this
+     * instance exclusively.
+     */
+    String sanitize(String raw)
+    {
+        final int len = raw.length();
+        if (buf.length < len)
+        {
+            buf = new char[Math.max(len, buf.length * 2)];
+        }
+
+        int n = 0;
+        boolean inSpace = false;
+        boolean changed = false;
+        // Once no '>' is left, every later '<' is literal; avoids rescanning the tail.
+        boolean noCloseAhead = false;
+
+        for (int i = 0; i < len; i++)
+        {
+            char c = raw.charAt(i);
+
+            if (c == '<' && !noCloseAhead)
+            {
+                int close = raw.indexOf('>', i + 1);
+                if (close < 0)
+                {
+                    noCloseAhead = true;
+                }
+                else
+                {
+                    c = ' ';
+                    i = close;
+                    changed = true;
+                }
+            }
+            else if (c == '\u00A0')
+            {
+                c = ' ';
+                changed = true;
+            }
+
+            // trim(): drop leading chars <= ' '
+            if (n == 0 && c <= ' ')
+            {
+                changed = true;
+                continue;
+            }
+
+            // \\s+ -> ' '
+            if (isRegexSpace(c))
+            {
+                if (inSpace || c != ' ')
+                {
+                    changed = true;
+                }
+                if (!inSpace)
+                {
+                    buf[n++] = ' ';
+                    inSpace = true;
+                }
+                continue;
+            }
+
+            inSpace = false;
+            buf[n++] = c;
+        }
+
+        // trim(): drop trailing chars <= ' '
+        while (n > 0 && buf[n - 1] <= ' ')
+        {
+            n--;
+            changed = true;
+        }
+
+        if (!changed && n == len)
+        {
+            return raw;
+        }
+        return new String(buf, 0, n);
+    }
+
+    /**
+     * Same set as the default (non-Unicode) regex class \\s.
+     */
+    private static boolean isRegexSpace(char c)
+    {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
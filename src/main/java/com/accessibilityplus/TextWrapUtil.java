@@ -1,102 +1,242 @@
 package com.accessibilityplus;
 
+import java.awt.Font;
 import java.awt.FontMetrics;
-import java.util.ArrayList;
+import java.awt.font.FontRenderContext;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Small utility to wrap text into lines based on pixel width.
+ *
+ * The wrapping itself lives in LineBreaks. This class holds what it shares: whitespace
+ * cleanup, the per-glyph advance tables that widths are summed from instead of measuring
+ * each candidate line, and a hard break for pieces wider than a line. The sums are
+ * accumulated and rounded like FontMetrics.stringWidth. Text the tables cannot describe
+ * (characters beyond Latin-1, fonts with kerning or ligatures) is measured with
+ * FontMetrics instead.
  */
 public final class TextWrapUtil
 {
-    private TextWrapUtil()
-    {
-    }
+    private static final int CACHED_FONTS = 16;
 
-    public static List<String> wrap(FontMetrics fm, String text, int maxWidthPx)
+    // Latin-1 advances per (font, render context), most recently used last.
+    private static final Map<List<Object>, float[]> ADVANCES = new LinkedHashMap<List<Object>, float[]>(CACHED_FONTS, 0.75f, true)
     {
-        final List<String> lines = new ArrayList<>();
-        if (text == null)
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, float[]> eldest)
         {
-            return lines;
+            return size() > CACHED_FONTS;
         }
+    };
 
-        String cleaned = text
-            .replace('\r', ' ')
-            .replace('\n', ' ')
-            .replace('\t', ' ')
-            .trim();
+    // The table used last; consecutive wraps nearly always share a font.
+    private static volatile AdvanceTable last;
 
-        if (cleaned.isEmpty())
+    private static final class AdvanceTable
+    {
+        final Font font;
+        final FontRenderContext frc;
+        final float[] adv;
+
+        AdvanceTable(Font font, FontRenderContext frc, float[] adv)
         {
-            return lines;
+            this.font = font;
+            this.frc = frc;
+            this.adv = adv;
         }
+    }
 
-        String[] words = cleaned.split("\\s+");
-        StringBuilder line = new StringBuilder();
+    private TextWrapUtil()
+    {
+    }
+
+    /**
+     * Wrap at Unicode line break opportunities (spaces, hyphens, slashes, between CJK
+     * ideographs) using cached, pre-measured LineBreaks.
+     *
+     * GREEDY fills each line as far as it goes. BALANCED is a minimum-raggedness wrap in the
+     * style of Knuth and Plass: it keeps the greedy number of lines but chooses the breaks
+     * that minimize the sum of squared leftover space. Unlike classic Knuth-Plass the last
+     * line counts too, so large text reads as an even block instead of long lines followed by
+     * a stub. Either way, pieces wider than a line are hard-broken onto lines of their own.
+     */
+    public static List<String> wrap(FontMetrics fm, String text, int maxWidthPx, AccessibilityPlusConfig.WrapMode mode)
+    {
+        return LineBreaks.of(fm, text).wrap(maxWidthPx, mode);
+    }
 
-        for (String w : words)
+    /**
+     * Split text[from, to) into the longest pieces that fit, one character minimum.
+     *
+     * Each break is found by binary search over running sums, then settled against the exact
+     * left-to-right float sum so rounding matches stringWidth of the piece.
+     */
+    static void hardBreakWord(float[] adv, String text, int from, int to, int maxWidthPx, List<String> out)
+    {
+        int len = to - from;
+        double[] sums = new double[len + 1];
+        for (int k = 0; k < len; k++)
         {
-            if (line.length() == 0)
-            {
-                line.append(w);
-                continue;
-            }
+            sums[k + 1] = sums[k] + adv[text.charAt(from + k)];
+        }
 
-            String candidate = line + " " + w;
-            if (fm.stringWidth(candidate) <= maxWidthPx)
-            {
-                line.append(" ").append(w);
-            }
-            else
+        int start = 0;
+        while (start < len)
+        {
+            int lo = start + 1;
+            int hi = len;
+            while (lo < hi)
             {
-                lines.add(line.toString());
-                line.setLength(0);
-
-                // if a single word is too long, hard-break it
-                if (fm.stringWidth(w) > maxWidthPx)
+                int mid = (lo + hi + 1) >>> 1;
+                if (round(sums[mid] - sums[start]) <= maxWidthPx)
                 {
-                    lines.addAll(hardBreakWord(fm, w, maxWidthPx));
+                    lo = mid;
                 }
                 else
                 {
-                    line.append(w);
+                    hi = mid - 1;
                 }
             }
+
+            int end = lo;
+            while (end > start + 1 && round(width(adv, text, from + start, from + end, 0f)) > maxWidthPx)
+            {
+                end--;
+            }
+            while (end < len && round(width(adv, text, from + start, from + end + 1, 0f)) <= maxWidthPx)
+            {
+                end++;
+            }
+
+            out.add(text.substring(from + start, from + end));
+            start = end;
         }
+    }
 
-        if (line.length() > 0)
+    /**
+     * Trim text and collapse each run of whitespace inside it to one space, the same way
+     * joining text.trim().split("\\s+") with spaces would.
+     */
+    static String clean(String text)
+    {
+        if (text == null)
         {
-            lines.add(line.toString());
+            return "";
         }
 
-        return lines;
+        // After trim() the text neither starts nor ends with whitespace, so i + 1 stays in range.
+        String t = text.trim();
+        int n = t.length();
+        int i = 0;
+        while (i < n)
+        {
+            char c = t.charAt(i);
+            if (isWhitespace(c) && (c != ' ' || isWhitespace(t.charAt(i + 1))))
+            {
+                break;
+            }
+            i++;
+        }
+        if (i == n)
+        {
+            // Common case: single spaces only.
+            return t;
+        }
+
+        StringBuilder sb = new StringBuilder(n).append(t, 0, i);
+        while (i < n)
+        {
+            char c = t.charAt(i++);
+            if (!isWhitespace(c))
+            {
+                sb.append(c);
+                continue;
+            }
+            sb.append(' ');
+            while (isWhitespace(t.charAt(i)))
+            {
+                i++;
+            }
+        }
+        return sb.toString();
     }
 
-    private static List<String> hardBreakWord(FontMetrics fm, String w, int maxWidthPx)
+    // --------------------
+    // Advance tables
+    // --------------------
+
+    /**
+     * @return the Latin-1 advance table for fm's font, or null if text cannot be measured
+     *         by summing it
+     */
+    static float[] advancesFor(FontMetrics fm, String text)
     {
-        List<String> out = new ArrayList<>();
-        StringBuilder part = new StringBuilder();
-        for (int i = 0; i < w.length(); i++)
+        Font font = fm.getFont();
+        if (font.hasLayoutAttributes())
+        {
+            return null;
+        }
+        for (int i = 0; i < text.length(); i++)
+        {
+            if (text.charAt(i) > 0xFF)
+            {
+                return null;
+            }
+        }
+
+        FontRenderContext frc = fm.getFontRenderContext();
+        AdvanceTable t = last;
+        if (t != null && t.font.equals(font) && t.frc.equals(frc))
         {
-            part.append(w.charAt(i));
-            if (fm.stringWidth(part.toString()) > maxWidthPx)
+            return t.adv;
+        }
+
+        List<Object> key = List.of(font, frc);
+        synchronized (ADVANCES)
+        {
+            float[] adv = ADVANCES.get(key);
+            if (adv == null)
             {
-                // move last char to next line
-                char last = part.charAt(part.length() - 1);
-                part.deleteCharAt(part.length() - 1);
-                if (part.length() > 0)
+                adv = new float[0x100];
+                char[] c = new char[1];
+                for (int ch = 0; ch < adv.length; ch++)
                 {
-                    out.add(part.toString());
+                    c[0] = (char) ch;
+                    adv[ch] = (float) font.getStringBounds(c, 0, 1, frc).getWidth();
                 }
-                part.setLength(0);
-                part.append(last);
+                ADVANCES.put(key, adv);
             }
+            last = new AdvanceTable(font, frc, adv);
+            return adv;
         }
-        if (part.length() > 0)
+    }
+
+    /**
+     * start plus the advances of text[from, to), added left to right like stringWidth does.
+     */
+    static float width(float[] adv, String text, int from, int to, float start)
+    {
+        float w = start;
+        for (int i = from; i < to; i++)
         {
-            out.add(part.toString());
+            w += adv[text.charAt(i)];
         }
-        return out;
+        return w;
+    }
+
+    /**
+     * Round a width to whole pixels the way FontMetrics.stringWidth does.
+     */
+    static int round(double width)
+    {
+        return (int) (0.5 + width);
+    }
+
+    // Regex \s without UNICODE_CHARACTER_CLASS.
+    private static boolean isWhitespace(char c)
+    {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 }
@@ -0,0 +1,384 @@
+package com.accessibilityplus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Session history of dialog screens for the transcript panel.
+ *
+ * Entries live in a fixed-capacity ring of int string ids plus a timestamp, so an entry
+ * costs a few array slots rather than objects. Strings are interned once into a UTF-8
+ * byte slab: repeated speakers, lines and option lists share storage. When the slab or the
+ * id table fills up it is compacted down to the strings still referenced by the ring, and
+ * if that is not enough the oldest entries are dropped. Total memory (ring, slab and its
+ * compaction spare) is therefore fixed at construction no matter how long the session runs.
+ *
+ * Written on the client thread and read from the Swing thread; all access is synchronized.
+ */
+final class Transcript
+{
+    static final int DEFAULT_CAPACITY = 2048;
+    static final int DEFAULT_SLAB_BYTES = 1 << 20;
+
+    private static final int EMPTY = 0; // id of "", always interned
+
+    /**
+     * One decoded history entry, built on demand for the page being shown.
+     */
+    static final class Entry
+    {
+        final long time;
+        final String speaker;
+        final String text;
+        final List<String> options;
+
+        private Entry(long time, String speaker, String text, List<String> options)
+        {
+            this.time = time;
+            this.speaker = speaker;
+            this.text = text;
+            this.options = options;
+        }
+    }
+
+    // Ring of entries, oldest at (head - size) mod capacity.
+    private final int capacity;
+    private final long[] times;
+    private final int[] speakers;
+    private final int[] texts;
+    private final int[] options;
+    private int head = 0;
+    private int size = 0;
+    private long appended = 0L;
+
+    // String pool: ids index into offsets/lengths/hashes; table maps hash -> id + 1.
+    private final int maxStrings;
+    private byte[] slab;
+    private int slabUsed;
+    private int[] offsets;
+    private int[] lengths;
+    private int[] hashes;
+    private int stringCount;
+    private int[] table;
+
+    // Second copy of the pool arrays used as the compaction target.
+    private byte[] spareSlab;
+    private int[] spareOffsets;
+    private int[] spareLengths;
+    private int[] spareHashes;
+    private int spareCount;
+    private final int[] remap;
+
+    Transcript()
+    {
+        this(DEFAULT_CAPACITY, DEFAULT_SLAB_BYTES);
+    }
+
+    Transcript(int capacity, int slabBytes)
+    {
+        this.capacity = capacity;
+        this.times = new long[capacity];
+        this.speakers = new int[capacity];
+        this.texts = new int[capacity];
+        this.options = new int[capacity];
+
+        // Every live entry references at most three strings, plus the shared "".
+        this.maxStrings = capacity * 3 + 1;
+        this.slab = new byte[slabBytes];
+        this.offsets = new int[maxStrings];
+        this.lengths = new int[maxStrings];
+        this.hashes = new int[maxStrings];
+        this.table = new int[Integer.highestOneBit(maxStrings * 2 - 1) << 1];
+        this.spareSlab = new byte[slabBytes];
+        this.spareOffsets = new int[maxStrings];
+        this.spareLengths = new int[maxStrings];
+        this.spareHashes = new int[maxStrings];
+        this.remap = new int[maxStrings];
+        resetPool();
+    }
+
+    /**
+     * Append a dialog screen unless it repeats the newest entry.
+     */
+    synchronized void append(long time, String speaker, String text, List<String> optionList)
+    {
+        byte[] s = utf8(speaker);
+        byte[] t = utf8(text);
+        byte[] o = utf8(optionList == null || optionList.isEmpty() ? "" : String.join("\n", optionList));
+
+        if (size > 0)
+        {
+            int last = (head - 1 + capacity) % capacity;
+            if (equalsId(speakers[last], s) && equalsId(texts[last], t) && equalsId(options[last], o))
+            {
+                return;
+            }
+        }
+
+        if (s.length + t.length + o.length > slab.length)
+        {
+            return;
+        }
+
+        // The slot about to be overwritten no longer counts as live.
+        if (size == capacity)
+        {
+            size--;
+        }
+
+        int si;
+        int ti;
+        int oi;
+        boolean compacted = false;
+        while (true)
+        {
+            si = intern(s);
+            ti = si < 0 ? -1 : intern(t);
+            oi = ti < 0 ? -1 : intern(o);
+            if (oi >= 0)
+            {
+                break;
+            }
+
+            // First drop strings no entry uses any more, then the oldest eighth of the
+            // history at a time until the new entry fits.
+            if (compacted)
+            {
+                size -= Math.max(1, size / 8);
+            }
+            compact();
+            compacted = true;
+        }
+
+        times[head] = time;
+        speakers[head] = si;
+        texts[head] = ti;
+        options[head] = oi;
+        head = (head + 1) % capacity;
+        size++;
+        appended++;
+    }
+
+    synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * Total entries ever appended, including ones that have since been overwritten.
+     * Changes whenever a new entry arrives, so the panel can tell when to refresh.
+     */
+    synchronized long appended()
+    {
+        return appended;
+    }
+
+    /**
+     * Decode a page of history, newest first.
+     *
+     * @param page zero-based page number, 0 being the newest entries
+     */
+    synchronized List<Entry> page(int page, int pageSize)
+    {
+        int from = page * pageSize;
+        if (from >= size || pageSize <= 0)
+        {
+            return Collections.emptyList();
+        }
+
+        int n = Math.min(pageSize, size - from);
+        List<Entry> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+        {
+            int slot = (head - 1 - from - i + 2 * capacity) % capacity;
+            String joined = decode(options[slot]);
+            out.add(new Entry(
+                times[slot],
+                decode(speakers[slot]),
+                decode(texts[slot]),
+                joined.isEmpty() ? Collections.emptyList() : Arrays.asList(joined.split("\n"))));
+        }
+        return out;
+    }
+
+    synchronized void clear()
+    {
+        head = 0;
+        size = 0;
+        resetPool();
+    }
+
+    /**
+     * Bytes used by the string slab, for debugging.
+     */
+    synchronized int slabUsed()
+    {
+        return slabUsed;
+    }
+
+    // --------------------
+    // String pool
+    // --------------------
+
+    private void resetPool()
+    {
+        slabUsed = 0;
+        stringCount = 0;
+        Arrays.fill(table, 0);
+        intern(new byte[0], 0, 0, 1);
+    }
+
+    private int intern(byte[] b)
+    {
+        return intern(b, 0, b.length, hash(b, 0, b.length));
+    }
+
+    /**
+     * @return the id of src[off, off + len), adding it to the pool if needed, or -1 if the
+     *         pool is full
+     */
+    private int intern(byte[] src, int off, int len, int h)
+    {
+        int mask = table.length - 1;
+        int i = h & mask;
+
+        while (table[i] != 0)
+        {
+            int id = table[i] - 1;
+            if (hashes[id] == h && equalsId(id, src, off, len))
+            {
+                return id;
+            }
+            i = (i + 1) & mask;
+        }
+
+        if (stringCount == maxStrings || slabUsed + len > slab.length)
+        {
+            return -1;
+        }
+
+        int id = stringCount++;
+        System.arraycopy(src, off, slab, slabUsed, len);
+        offsets[id] = slabUsed;
+        lengths[id] = len;
+        hashes[id] = h;
+        slabUsed += len;
+        table[i] = id + 1;
+        return id;
+    }
+
+    private boolean equalsId(int id, byte[] b)
+    {
+        return equalsId(id, b, 0, b.length);
+    }
+
+    private boolean equalsId(int id, byte[] src, int off, int len)
+    {
+        if (lengths[id] != len)
+        {
+            return false;
+        }
+        int at = offsets[id];
+        for (int i = 0; i < len; i++)
+        {
+            if (slab[at + i] != src[off + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String decode(int id)
+    {
+        if (id == EMPTY)
+        {
+            return "";
+        }
+        return new String(slab, offsets[id], lengths[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Rebuild the pool from the strings referenced by live entries, oldest first.
+     * The pool is double-buffered, so compaction copies into the spare arrays and swaps
+     * instead of allocating.
+     */
+    private void compact()
+    {
+        byte[] oldSlab = swap();
+        int[] oldOffsets = spareOffsets;
+        int[] oldLengths = spareLengths;
+        int[] oldHashes = spareHashes;
+        int oldCount = spareCount;
+
+        resetPool();
+
+        Arrays.fill(remap, 0, oldCount, -1);
+        remap[EMPTY] = EMPTY;
+
+        for (int i = size - 1; i >= 0; i--)
+        {
+            int slot = (head - 1 - i + 2 * capacity) % capacity;
+            speakers[slot] = move(speakers[slot], oldSlab, oldOffsets, oldLengths, oldHashes);
+            texts[slot] = move(texts[slot], oldSlab, oldOffsets, oldLengths, oldHashes);
+            options[slot] = move(options[slot], oldSlab, oldOffsets, oldLengths, oldHashes);
+        }
+    }
+
+    /**
+     * Exchange the live and spare pool arrays.
+     *
+     * @return the slab that was live
+     */
+    private byte[] swap()
+    {
+        byte[] b = slab;
+        slab = spareSlab;
+        spareSlab = b;
+
+        int[] a = offsets;
+        offsets = spareOffsets;
+        spareOffsets = a;
+
+        a = lengths;
+        lengths = spareLengths;
+        spareLengths = a;
+
+        a = hashes;
+        hashes = spareHashes;
+        spareHashes = a;
+
+        spareCount = stringCount;
+        return spareSlab;
+    }
+
+    private int move(int oldId, byte[] oldSlab, int[] oldOffsets, int[] oldLengths, int[] oldHashes)
+    {
+        int id = remap[oldId];
+        if (id < 0)
+        {
+            // Live strings always fit back: they fitted before and nothing was added.
+            id = intern(oldSlab, oldOffsets[oldId], oldLengths[oldId], oldHashes[oldId]);
+            remap[oldId] = id;
+        }
+        return id;
+    }
+
+    private static int hash(byte[] b, int off, int len)
+    {
+        int h = 1;
+        for (int i = off; i < off + len; i++)
+        {
+            h = 31 * h + b[i];
+        }
+        return h;
+    }
+
+    private static byte[] utf8(String s)
+    {
+        return s == null || s.isEmpty() ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,184 @@
+package com.accessibilityplus;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GridLayout;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextArea;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.PluginPanel;
+
+/**
+ * Side panel listing the dialog transcript, newest first, one page at a time.
+ *
+ * Only the visible page is decoded from the Transcript, and only while the panel is open.
+ * New entries refresh the panel when it is showing the newest page; older pages stay put
+ * until the user pages back.
+ */
+class TranscriptPanel extends PluginPanel
+{
+    private static final int PAGE_SIZE = 25;
+
+    private final Transcript transcript;
+
+    private final JPanel entries = new JPanel();
+    private final JLabel pageLabel = new JLabel("", SwingConstants.CENTER);
+    private final JButton newer = new JButton("Newer");
+    private final JButton older = new JButton("Older");
+
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+
+    // Swing state, only touched on the event dispatch thread.
+    private int page = 0;
+    private boolean active = false;
+
+    // Coalesces refresh requests from the client thread.
+    private final AtomicBoolean refreshQueued = new AtomicBoolean(false);
+
+    TranscriptPanel(Transcript transcript)
+    {
+        this.transcript = transcript;
+
+        setLayout(new BorderLayout(0, 6));
+        setBackground(ColorScheme.DARK_GRAY_COLOR);
+
+        JPanel nav = new JPanel(new GridLayout(1, 3, 4, 0));
+        nav.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        nav.add(newer);
+        nav.add(pageLabel);
+        nav.add(older);
+
+        newer.addActionListener(e ->
+        {
+            page = Math.max(0, page - 1);
+            refresh();
+        });
+        older.addActionListener(e ->
+        {
+            page++;
+            refresh();
+        });
+
+        entries.setLayout(new BoxLayout(entries, BoxLayout.Y_AXIS));
+        entries.setBackground(ColorScheme.DARK_GRAY_COLOR);
+
+        add(nav, BorderLayout.NORTH);
+        add(entries, BorderLayout.CENTER);
+    }
+
+    @Override
+    public void onActivate()
+    {
+        active = true;
+        refresh();
+    }
+
+    @Override
+    public void onDeactivate()
+    {
+        active = false;
+    }
+
+    /**
+     * Called from the client thread after an entry was appended.
+     */
+    void transcriptChanged()
+    {
+        if (refreshQueued.compareAndSet(false, true))
+        {
+            SwingUtilities.invokeLater(() ->
+            {
+                refreshQueued.set(false);
+                if (active && page == 0)
+                {
+                    refresh();
+                }
+            });
+        }
+    }
+
+    private void refresh()
+    {
+        int size = transcript.size();
+        int pages = Math.max(1, (size + PAGE_SIZE - 1) / PAGE_SIZE);
+        page = Math.min(page, pages - 1);
+
+        List<Transcript.Entry> shown = transcript.page(page, PAGE_SIZE);
+
+        entries.removeAll();
+        for (Transcript.Entry e : shown)
+        {
+            entries.add(entryView(e));
+        }
+
+        pageLabel.setText((page + 1) + " / " + pages);
+        newer.setEnabled(page > 0);
+        older.setEnabled(page < pages - 1);
+
+        entries.revalidate();
+        entries.repaint();
+    }
+
+    private JTextArea entryView(Transcript.Entry e)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(timeFormat.format(new Date(e.time))).append("  ");
+        if (!e.speaker.isEmpty())
+        {
+            sb.append(e.speaker).append(": ");
+        }
+        sb.append(e.text);
+
+        int idx = 1;
+        for (String o : e.options)
+        {
+            sb.append('\n').append(idx++).append(". ").append(o);
+        }
+
+        JTextArea area = new JTextArea(sb.toString().trim());
+        area.setEditable(false);
+        area.setLineWrap(true);
+        area.setWrapStyleWord(true);
+        area.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        area.setForeground(Color.WHITE);
+        area.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createMatteBorder(0, 0, 1, 0, ColorScheme.DARK_GRAY_COLOR),
+            BorderFactory.createEmptyBorder(4, 6, 4, 6)));
+        return area;
+    }
+
+    /**
+     * Toolbar icon drawn in code: a page with a few lines of text.
+     */
+    static BufferedImage icon()
+    {
+        BufferedImage img = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        g.setColor(new Color(220, 220, 220));
+        g.fillRoundRect(2, 1, 12, 14, 3, 3);
+
+        g.setColor(new Color(60, 60, 60));
+        for (int y = 4; y <= 12; y += 3)
+        {
+            g.drawLine(4, y, 11, y);
+        }
+
+        g.dispose();
+        return img;
+    }
+}
@@ -2,11 +2,20 @@ package com.accessibilityplus.tts;
 
 import com.accessibilityplus.AccessibilityPlusConfig;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -28,8 +37,29 @@ public class CloudSpeechEngine implements SpeechEngine
     private final ScheduledExecutorService executor;
     private final WavPlayer wavPlayer;
 
+    // Prefetched audio, least recently used first. Bounded by entries and total bytes.
+    private static final int PREFETCH_MAX_ENTRIES = 16;
+    private static final long PREFETCH_MAX_BYTES = 4L * 1024 * 1024;
+
     private volatile Call inFlight;
 
+    private final Map<String, byte[]> prefetched = new LinkedHashMap<>(16, 0.75f, true);
+    private long prefetchedBytes = 0L;
+    // Prefetches still in flight, by cache key.
+    private final Map<String, Prefetch> prefetching = new ConcurrentHashMap<>();
+
+    private static final class Prefetch
+    {
+        final Call call;
+        // Completed with the audio, or null if the fetch failed or was dropped.
+        final CompletableFuture<byte[]> audio = new CompletableFuture<>();
+
+        Prefetch(Call call)
+        {
+            this.call = call;
+        }
+    }
+
     @Inject
     public CloudSpeechEngine(
             OkHttpClient http,
@@ -71,59 +101,233 @@ public class CloudSpeechEngine implements SpeechEngine
             prev.cancel();
         }
 
-        executor.execute(() ->
+        final String key = cacheKey(text);
+        final byte[] cached = cachedAudio(key);
+        if (cached != null)
         {
-            try
+            executor.execute(() -> wavPlayer.playBytesIfCurrent(cached, gen));
+            return;
+        }
+
+        // The user advanced while this line was still being prefetched: wait for that request
+        // instead of sending the same one again, and only fetch here if it failed.
+        Prefetch pending = prefetching.get(key);
+        if (pending != null)
+        {
+            pending.audio.whenCompleteAsync((wav, err) ->
             {
-                HttpUrl url = new HttpUrl.Builder()
-                        .scheme(TTS_SCHEME)
-                        .host(TTS_HOST)
-                        // If your service expects a path, set it here:
-                        // .addPathSegment("tts")
-                        .addQueryParameter("m", text)
-                        .addQueryParameter("r", String.valueOf(config.cloudTtsRate()))
-                        .addQueryParameter("v", String.valueOf(config.cloudTtsVoice()))
-                        .build();
-
-                Request req = new Request.Builder()
-                        .url(url)
-                        .get()
-                        .build();
-
-                Call call = http.newCall(req);
-                inFlight = call;
-
-                try (Response res = call.execute())
+                if (wavPlayer.currentGeneration() != gen)
                 {
-                    if (!res.isSuccessful() || res.body() == null)
-                    {
-                        return;
-                    }
+                    return;
+                }
+                if (wav != null)
+                {
+                    wavPlayer.playBytesIfCurrent(wav, gen);
+                }
+                else
+                {
+                    fetchAndPlay(text, gen);
+                }
+            }, executor);
+            return;
+        }
 
-                    byte[] wav = res.body().bytes();
+        executor.execute(() -> fetchAndPlay(text, gen));
+    }
 
-                    if (wavPlayer.currentGeneration() != gen)
-                    {
-                        return;
-                    }
+    private void fetchAndPlay(String text, long gen)
+    {
+        try
+        {
+            Call call = newCall(text);
+            inFlight = call;
 
-                    wavPlayer.playBytesIfCurrent(wav, gen);
-                }
+            byte[] wav = fetch(call);
+            if (wav == null || wavPlayer.currentGeneration() != gen)
+            {
+                return;
+            }
+
+            wavPlayer.playBytesIfCurrent(wav, gen);
+        }
+        catch (IOException e)
+        {
+            if (!"Canceled".equalsIgnoreCase(e.getMessage()))
+            {
+                log.debug("Cloud TTS failed: {}", e.toString());
             }
-            catch (IOException e)
+        }
+        catch (Exception e)
+        {
+            log.debug("Cloud TTS unexpected error: {}", e.toString());
+        }
+    }
+
+    /**
+     * Synthesize text in the background and keep the audio for a later speak() of the
+     * same text at the same rate and voice. Does not touch playback.
+     *
+     * Prefetches are queued on OkHttp's dispatcher rather than run on the shared executor,
+     * so a speak() that was not predicted never waits behind them, and neither do other
+     * plugins' tasks.
+     */
+    @Override
+    public void prefetch(String text)
+    {
+        if (!isAvailable() || text == null || text.trim().isEmpty())
+        {
+            return;
+        }
+
+        final String key = cacheKey(text);
+        if (cachedAudio(key) != null || prefetching.containsKey(key))
+        {
+            return;
+        }
+
+        final Prefetch p = new Prefetch(newCall(text));
+        if (prefetching.putIfAbsent(key, p) != null)
+        {
+            return;
+        }
+
+        p.call.enqueue(new Callback()
+        {
+            @Override
+            public void onFailure(Call call, IOException e)
             {
-                if (!"Canceled".equalsIgnoreCase(e.getMessage()))
+                if (!call.isCanceled())
                 {
-                    log.debug("Cloud TTS failed: {}", e.toString());
+                    log.debug("Cloud TTS prefetch failed: {}", e.toString());
                 }
+                finish(key, p, null);
             }
-            catch (Exception e)
+
+            @Override
+            public void onResponse(Call call, Response res)
             {
-                log.debug("Cloud TTS unexpected error: {}", e.toString());
+                byte[] wav = null;
+                try (Response r = res)
+                {
+                    if (r.isSuccessful() && r.body() != null)
+                    {
+                        wav = r.body().bytes();
+                        storeAudio(key, wav);
+                    }
+                }
+                catch (IOException e)
+                {
+                    log.debug("Cloud TTS prefetch failed: {}", e.toString());
+                }
+                finally
+                {
+                    finish(key, p, wav);
+                }
             }
         });
     }
 
+    private void finish(String key, Prefetch p, byte[] wav)
+    {
+        // Stored before removal, so a speak() in between always finds one or the other.
+        prefetching.remove(key, p);
+        p.audio.complete(wav);
+    }
+
+    @Override
+    public void retainPrefetches(Collection<String> texts)
+    {
+        if (prefetching.isEmpty())
+        {
+            return;
+        }
+
+        Set<String> keep = new HashSet<>();
+        for (String text : texts)
+        {
+            keep.add(cacheKey(text));
+        }
+
+        for (Map.Entry<String, Prefetch> e : prefetching.entrySet())
+        {
+            if (!keep.contains(e.getKey()))
+            {
+                // onFailure completes the future, so a speak() waiting on it fetches itself.
+                e.getValue().call.cancel();
+            }
+        }
+    }
+
+    private Call newCall(String text)
+    {
+        HttpUrl url = new HttpUrl.Builder()
+                .scheme(TTS_SCHEME)
+                .host(TTS_HOST)
+                // If your service expects a path, set it here:
+                // .addPathSegment("tts")
+                .addQueryParameter("m", text)
+                .addQueryParameter("r", String.valueOf(config.cloudTtsRate()))
+                .addQueryParameter("v", String.valueOf(config.cloudTtsVoice()))
+                .build();
+
+        Request req = new Request.Builder()
+                .url(url)
+                .get()
+                .build();
+
+        return http.newCall(req);
+    }
+
+    private static byte[] fetch(Call call) throws IOException
+    {
+        try (Response res = call.execute())
+        {
+            if (!res.isSuccessful() || res.body() == null)
+            {
+                return null;
+            }
+            return res.body().bytes();
+        }
+    }
+
+    private String cacheKey(String text)
+    {
+        return config.cloudTtsRate() + ":" + config.cloudTtsVoice() + ":" + text;
+    }
+
+    private byte[] cachedAudio(String key)
+    {
+        synchronized (prefetched)
+        {
+            return prefetched.get(key);
+        }
+    }
+
+    private void storeAudio(String key, byte[] wav)
+    {
+        if (wav.length > PREFETCH_MAX_BYTES)
+        {
+            return;
+        }
+
+        synchronized (prefetched)
+        {
+            byte[] old = prefetched.put(key, wav);
+            if (old != null)
+            {
+                prefetchedBytes -= old.length;
+            }
+            prefetchedBytes += wav.length;
+
+            Iterator<byte[]> it = prefetched.values().iterator();
+            while ((prefetched.size() > PREFETCH_MAX_ENTRIES || prefetchedBytes > PREFETCH_MAX_BYTES) && it.hasNext())
+            {
+                prefetchedBytes -= it.next().length;
+                it.remove();
+            }
+        }
+    }
+
     @Override
     public void stopNow()
     {
@@ -140,5 +344,16 @@ public class CloudSpeechEngine implements SpeechEngine
     public void shutdown()
     {
         stopNow();
+
+        for (Prefetch p : prefetching.values())
+        {
+            p.call.cancel();
+        }
+
+        synchronized (prefetched)
+        {
+            prefetched.clear();
+            prefetchedBytes = 0L;
+        }
     }
 }
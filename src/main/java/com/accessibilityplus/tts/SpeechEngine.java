@@ -1,11 +1,14 @@
 package com.accessibilityplus.tts;
 
+import java.util.Collection;
+
 /**
  * Simple abstraction so we can swap TTS backends later.
  *
  * Contract:
  * - speak() must return quickly (do work off-thread).
  * - stopNow() should best-effort stop current and cancel queued work.
+ * - prefetch() and retainPrefetches() are hints; engines without a cache may ignore them.
  */
 public interface SpeechEngine
 {
@@ -13,6 +16,20 @@ public interface SpeechEngine
 
     void speak(String text);
 
+    /**
+     * Prepare audio for text that is likely to be spoken soon, without playing it.
+     */
+    default void prefetch(String text)
+    {
+    }
+
+    /**
+     * Drop prefetches of anything but texts that have not finished yet.
+     */
+    default void retainPrefetches(Collection<String> texts)
+    {
+    }
+
     void stopNow();
 
     void shutdown();
@@ -1,6 +1,7 @@
 package com.accessibilityplus.tts;
 
 import com.accessibilityplus.AccessibilityPlusConfig;
+import com.accessibilityplus.DialogSnapshot;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -19,6 +20,9 @@ import lombok.extern.slf4j.Slf4j;
 @Singleton
 public class TtsController
 {
+    // Long lists (teleports, make-X) are read up to here, then summarised as "and N more".
+    private static final int MAX_SPOKEN_OPTIONS = 10;
+
     private final AccessibilityPlusConfig config;
     private final SpeechEngineFactory engineFactory;
 
@@ -30,8 +34,16 @@ public class TtsController
     private String lastSpokenOptionsKey = "";
     private long lastSpokenAt = 0L;
 
+    // Snapshot version with nothing left to speak (everything spoken or already heard).
+    // Ticks that still see this version return immediately.
+    private long settledVersion = -1L;
+    private boolean settledWithOptions = false;
+
     // When the user clicks through, suppress speaking stale option lists for a short window.
     private volatile long suppressUntil = 0L;
+    // Snapshot last passed to updateFromDialog, and the one on screen at the last click.
+    private volatile long lastSeenVersion = -1L;
+    private volatile long suppressedVersion = -1L;
 
     @Inject
     public TtsController(AccessibilityPlusConfig config, SpeechEngineFactory engineFactory)
@@ -80,7 +92,10 @@ public class TtsController
         lastSpokenDialogKey = "";
         lastSpokenOptionsKey = "";
         lastSpokenAt = 0L;
+        settledVersion = -1L;
+        settledWithOptions = false;
         suppressUntil = 0L;
+        suppressedVersion = -1L;
     }
 
     /**
@@ -93,6 +108,7 @@ public class TtsController
     public void onUserAdvanceDialog()
     {
         suppressUntil = System.currentTimeMillis() + 750L;
+        suppressedVersion = lastSeenVersion;
 
         SpeechEngine e = engine;
         if (e != null)
@@ -128,13 +144,26 @@ public class TtsController
         e.speak("Accessibility Plus text to speech test.");
     }
 
-    public void updateFromDialog(String speaker, String dialogText, List<String> options)
+    /**
+     * @param snapshot      the dialog currently on screen
+     * @param speakOptions  whether the options have been stable long enough to be read out
+     * @param exact         whether the snapshot was read structurally; the click suppression
+     *                      then only holds back the screen that was showing at the click
+     */
+    public void updateFromDialog(DialogSnapshot snapshot, boolean speakOptions, boolean exact)
     {
         if (!config.enableTts())
         {
             return;
         }
 
+        lastSeenVersion = snapshot.getVersion();
+
+        if (snapshot.getVersion() == settledVersion && (settledWithOptions || !speakOptions))
+        {
+            return;
+        }
+
         SpeechEngine e = engine;
         if (e == null)
         {
@@ -142,85 +171,125 @@ public class TtsController
         }
 
         long now = System.currentTimeMillis();
-        if (now < suppressUntil)
+        if (now < suppressUntil && (!exact || snapshot.getVersion() == suppressedVersion))
         {
             return;
         }
 
-        String dialogKey = buildDialogKey(speaker, dialogText);
+        String dialogKey = snapshot.getDialogKey();
         if (!dialogKey.isEmpty() && shouldSpeakNow(dialogKey, true))
         {
             lastSpokenDialogKey = dialogKey;
             lastSpokenAt = now;
 
-            String phrase = buildDialogPhrase(speaker, dialogText);
+            String phrase = buildDialogPhrase(snapshot.getSpeaker(), snapshot.getText());
             if (!phrase.isEmpty())
             {
                 e.speak(phrase);
             }
         }
 
-        if (options != null && !options.isEmpty())
+        List<String> options = snapshot.getOptions();
+        String optionsKey = snapshot.getOptionsKey();
+        if (speakOptions && !optionsKey.isEmpty() && shouldSpeakNow(optionsKey, false))
         {
-            String optionsKey = buildOptionsKey(options);
-            if (!optionsKey.isEmpty() && shouldSpeakNow(optionsKey, false))
+            lastSpokenOptionsKey = optionsKey;
+            lastSpokenAt = now;
+
+            String phrase = buildOptionsPhrase(options);
+            if (!phrase.isEmpty())
             {
-                lastSpokenOptionsKey = optionsKey;
-                lastSpokenAt = now;
-
-                String phrase = buildOptionsPhrase(options);
-                if (!phrase.isEmpty())
-                {
-                    e.speak(phrase);
-                }
+                e.speak(phrase);
             }
         }
+
+        // Cooldowns can hold a line back; only settle once nothing is waiting.
+        boolean dialogDone = dialogKey.isEmpty() || dialogKey.equals(lastSpokenDialogKey);
+        boolean optionsDone = !speakOptions || optionsKey.isEmpty() || optionsKey.equals(lastSpokenOptionsKey);
+        if (dialogDone && optionsDone)
+        {
+            settledVersion = snapshot.getVersion();
+            settledWithOptions = speakOptions;
+        }
     }
 
-    private boolean shouldSpeakNow(String key, boolean isDialog)
+    /**
+     * The dialog moved on to current: drop prefetches still waiting for screens other than
+     * this one, so they do not hold up the network for lines that will not come.
+     */
+    public void dropStalePrefetches(DialogSnapshot current)
     {
-        long now = System.currentTimeMillis();
-
-        int cooldown = Math.max(0, config.ttsCooldownMs());
-        if (cooldown > 0 && (now - lastSpokenAt) < cooldown)
+        SpeechEngine e = engine;
+        if (e == null || !config.enableTts())
         {
-            return false;
+            return;
         }
 
-        if (isDialog)
+        List<String> keep = new ArrayList<>(2);
+        String phrase = buildDialogPhrase(current.getSpeaker(), current.getText());
+        if (!phrase.isEmpty())
         {
-            return !Objects.equals(key, lastSpokenDialogKey);
+            keep.add(phrase);
         }
-        return !Objects.equals(key, lastSpokenOptionsKey);
+        if (!current.getOptions().isEmpty())
+        {
+            phrase = buildOptionsPhrase(current.getOptions());
+            if (!phrase.isEmpty())
+            {
+                keep.add(phrase);
+            }
+        }
+        e.retainPrefetches(keep);
     }
 
-    private static String buildDialogKey(String speaker, String dialogText)
+    /**
+     * Ask the engine to synthesize a screen that is likely to come next, phrased exactly as
+     * updateFromDialog would speak it so the prefetched audio is reused.
+     */
+    public void prefetch(String speaker, String dialogText, List<String> options)
     {
-        String s = safe(speaker);
-        String t = safe(dialogText);
+        if (!config.enableTts())
+        {
+            return;
+        }
 
-        if (t.isEmpty())
+        SpeechEngine e = engine;
+        if (e == null)
         {
-            return "";
+            return;
         }
 
-        return s + "|" + t;
-    }
+        String phrase = buildDialogPhrase(speaker, dialogText);
+        if (!phrase.isEmpty())
+        {
+            e.prefetch(phrase);
+        }
 
-    private static String buildOptionsKey(List<String> options)
-    {
-        StringBuilder sb = new StringBuilder();
-        int n = Math.min(10, options.size());
-        for (int i = 0; i < n; i++)
+        if (options != null && !options.isEmpty())
         {
-            String o = safe(options.get(i));
-            if (!o.isEmpty())
+            phrase = buildOptionsPhrase(options);
+            if (!phrase.isEmpty())
             {
-                sb.append(o);
+                e.prefetch(phrase);
             }
-            sb.append('|');
         }
-        return sb.toString();
+    }
+
+    private boolean shouldSpeakNow(String key, boolean isDialog)
+    {
+        long now = System.currentTimeMillis();
+
+        int cooldown = Math.max(0, config.ttsCooldownMs());
+        if (cooldown > 0 && (now - lastSpokenAt) < cooldown)
+        {
+            return false;
+        }
+
+        if (isDialog)
+        {
+            return !Objects.equals(key, lastSpokenDialogKey);
+        }
+        return !Objects.equals(key, lastSpokenOptionsKey);
     }
 
     private String buildDialogPhrase(String speaker, String dialogText)
@@ -242,14 +311,22 @@ public class TtsController
     private String buildOptionsPhrase(List<String> options)
     {
         List<String> clean = new ArrayList<>();
-        int n = Math.min(10, options.size());
-        for (int i = 0; i < n; i++)
+        int more = 0;
+        for (String option : options)
         {
-            String o = safe(options.get(i));
-            if (!o.isEmpty())
+            String o = safe(option);
+            if (o.isEmpty())
+            {
+                continue;
+            }
+            if (clean.size() < MAX_SPOKEN_OPTIONS)
             {
                 clean.add(o);
             }
+            else
+            {
+                more++;
+            }
         }
 
         if (clean.isEmpty())
@@ -267,6 +344,10 @@ public class TtsController
                 sb.append(". ");
             }
         }
+        if (more > 0)
+        {
+            sb.append(". And ").append(more).append(" more.");
+        }
         return sb.toString();
     }
 
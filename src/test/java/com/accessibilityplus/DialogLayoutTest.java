@@ -0,0 +1,140 @@
+package com.accessibilityplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class DialogLayoutTest
+{
+    private static final Rectangle CLIP = new Rectangle(0, 0, 800, 500);
+
+    private static DialogSnapshot snapshot(int optionCount)
+    {
+        List<String> options = new ArrayList<>();
+        for (int i = 0; i < optionCount; i++)
+        {
+            // Every seventh option wraps, so rows have different heights.
+            options.add(i % 7 == 0 ? "Teleport to a rather distant place number " + i + " with a long name" : "Option " + i);
+        }
+        return DialogSnapshot.EMPTY.next("", "Where would you like to go?", options, new Rectangle(0, 340, 520, 140));
+    }
+
+    private static DialogLayout layout(int optionCount, int fontSize, boolean autoFit)
+    {
+        return layout(optionCount, fontSize, autoFit, 1.0);
+    }
+
+    private static DialogLayout layout(int optionCount, int fontSize, boolean autoFit, double scale)
+    {
+        return layout(optionCount, fontSize, autoFit, scale, CLIP.height);
+    }
+
+    private static DialogLayout layout(int optionCount, int fontSize, boolean autoFit, double scale, int clipHeight)
+    {
+        // The clip is in device pixels, like the overlay's once it drops the scale transform.
+        Rectangle clip = new Rectangle(0, 0, (int) (CLIP.width * scale), (int) (clipHeight * scale));
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        g.setFont(new Font(Font.DIALOG, Font.PLAIN, 16));
+        DialogSnapshot snapshot = snapshot(optionCount);
+        DialogLayout layout = autoFit
+            ? DialogLayout.fit(g, snapshot, fontSize, 720, AccessibilityPlusConfig.WrapMode.GREEDY, clip, scale)
+            : DialogLayout.build(g, snapshot, fontSize, 720, AccessibilityPlusConfig.WrapMode.GREEDY, clip, scale);
+        g.dispose();
+        return layout;
+    }
+
+    @Test
+    public void viewportMatchesRowByRowScan()
+    {
+        DialogLayout layout = layout(150, 28, false);
+        assertTrue(layout.maxFirstRow > 0);
+
+        for (int first = 0; first < layout.rows.size(); first++)
+        {
+            // The rows the old draw loop would have fitted below the first row.
+            int used = 0;
+            int end = first;
+            while (end < layout.rows.size() && used + layout.rows.get(end).height <= layout.viewportH)
+            {
+                used += layout.rows.get(end).height + 1;
+                end++;
+            }
+            assertEquals("first " + first, end, layout.visibleEnd(first));
+        }
+
+        // The last page ends exactly at the last row, and one row earlier would not.
+        assertEquals(layout.rows.size(), layout.visibleEnd(layout.maxFirstRow));
+        assertTrue(layout.visibleEnd(layout.maxFirstRow - 1) < layout.rows.size());
+    }
+
+    @Test
+    public void shortListsDoNotScroll()
+    {
+        DialogLayout layout = layout(3, 28, false);
+        assertEquals(0, layout.maxFirstRow);
+        assertEquals(3, layout.visibleEnd(0));
+    }
+
+    @Test
+    public void autoFitPicksTheLargestSizeThatFits()
+    {
+        // Five rows, the most the viewport shows, do not fit a short game view at 28.
+        DialogLayout fitted = layout(DialogLayout.MAX_VISIBLE_ROWS, 28, true, 1.0, 300);
+        int size = fitted.dialogFont.getSize();
+
+        assertTrue(fitted.fits);
+        assertTrue(size < 28 && size >= DialogLayout.MIN_FONT_SIZE);
+        assertEquals(0, fitted.maxFirstRow);
+        assertFalse(layout(DialogLayout.MAX_VISIBLE_ROWS, size + 1, false, 1.0, 300).fits);
+    }
+
+    @Test
+    public void autoFitKeepsTheRequestedSizeWhenItFits()
+    {
+        DialogLayout fitted = layout(2, 28, true);
+        assertTrue(fitted.fits);
+        assertEquals(28, fitted.dialogFont.getSize());
+    }
+
+    @Test
+    public void scaledLayoutIsInDevicePixels()
+    {
+        DialogLayout normal = layout(3, 20, false, 1.0);
+        DialogLayout hiDpi = layout(3, 20, false, 2.0);
+
+        assertEquals(40, hiDpi.dialogFont.getSize());
+        assertEquals(DialogLayout.PAD * 2, hiDpi.pad);
+        assertEquals(DialogLayout.ROW_PAD_Y * 2, hiDpi.rowPadY);
+        assertEquals(normal.x * 2, hiDpi.x);
+        assertEquals(normal.width * 2, hiDpi.width);
+        assertEquals(normal.bounds.y * 2, hiDpi.bounds.y);
+        assertEquals(normal.bounds.height * 2, hiDpi.bounds.height);
+        assertEquals(normal.rows.size(), hiDpi.rows.size());
+
+        // 150% rounds to whole pixels.
+        DialogLayout oneAndHalf = layout(3, 20, false, 1.5);
+        assertEquals(24, oneAndHalf.pad);
+        assertEquals(3, oneAndHalf.wrapGap);
+    }
+
+    @Test
+    public void longListsPageInsteadOfGrowingThePanel()
+    {
+        DialogLayout few = layout(DialogLayout.MAX_VISIBLE_ROWS, 16, false);
+        DialogLayout many = layout(120, 16, false);
+
+        // Same viewport, however many options there are.
+        assertEquals(few.height, many.height);
+        assertEquals(few.viewportH, many.viewportH);
+        assertEquals(DialogLayout.MAX_VISIBLE_ROWS, many.visibleEnd(0));
+        assertTrue(many.maxFirstRow > 0);
+        assertTrue(many.fits);
+    }
+}
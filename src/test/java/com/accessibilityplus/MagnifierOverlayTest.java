@@ -0,0 +1,150 @@
+package com.accessibilityplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.Proxy;
+import net.runelite.api.Client;
+import net.runelite.api.hooks.DrawCallbacks;
+import org.junit.Test;
+
+public class MagnifierOverlayTest
+{
+    private static final int BUF_W = 765;
+    private static final int BUF_H = 503;
+
+    @Test
+    public void sourceRegionStaysInsideTheBuffer()
+    {
+        assertEquals(new Rectangle(320, 220, 160, 60), MagnifierOverlay.sourceRegion(400, 250, 160, 60, BUF_W, BUF_H));
+        assertEquals(new Rectangle(0, 0, 160, 60), MagnifierOverlay.sourceRegion(5, 5, 160, 60, BUF_W, BUF_H));
+        assertEquals(new Rectangle(BUF_W - 160, BUF_H - 60, 160, 60),
+            MagnifierOverlay.sourceRegion(BUF_W - 1, BUF_H - 1, 160, 60, BUF_W, BUF_H));
+
+        // Larger than the buffer: the whole buffer.
+        assertEquals(new Rectangle(0, 0, 100, 50), MagnifierOverlay.sourceRegion(50, 25, 400, 300, 100, 50));
+    }
+
+    @Test
+    public void lensSitsBelowTheSourceOrAboveWhenThereIsNoRoom()
+    {
+        Rectangle top = new Rectangle(320, 20, 160, 60);
+        Rectangle lens = MagnifierOverlay.lensBounds(top, 3, BUF_W, BUF_H);
+        assertEquals(480, lens.width);
+        assertEquals(180, lens.height);
+        assertEquals(top.y + top.height + 12, lens.y);
+        assertFalse(lens.intersects(top));
+
+        Rectangle bottom = new Rectangle(320, 400, 160, 60);
+        lens = MagnifierOverlay.lensBounds(bottom, 3, BUF_W, BUF_H);
+        assertEquals(bottom.y - 12 - 180, lens.y);
+        assertFalse(lens.intersects(bottom));
+
+        // Kept on the canvas horizontally.
+        lens = MagnifierOverlay.lensBounds(new Rectangle(BUF_W - 160, 20, 160, 60), 3, BUF_W, BUF_H);
+        assertEquals(BUF_W - 480, lens.x);
+    }
+
+    @Test
+    public void lensGoesBesideTheSourceWhenItIsTooTallForAboveOrBelow()
+    {
+        // 480x600 capped to the canvas height keeps its aspect ratio.
+        Rectangle src = new Rectangle(100, 150, 160, 200);
+        Rectangle lens = MagnifierOverlay.lensBounds(src, 3, BUF_W, BUF_H);
+        assertEquals(new Rectangle(src.x + src.width + 12, 0, 402, BUF_H), lens);
+
+        src = new Rectangle(BUF_W - 260, 150, 160, 200);
+        lens = MagnifierOverlay.lensBounds(src, 3, BUF_W, BUF_H);
+        assertEquals(src.x - 12 - 402, lens.x);
+        assertFalse(lens.intersects(src));
+    }
+
+    @Test
+    public void lensNeverCoversTheSourceAndStaysOnTheCanvas()
+    {
+        Rectangle canvas = new Rectangle(0, 0, BUF_W, BUF_H);
+        int[][] sizes = {{40, 20}, {160, 60}, {400, 300}, {BUF_W, 100}, {100, BUF_H}};
+        for (int[] size : sizes)
+        {
+            for (int zoom = 2; zoom <= 6; zoom++)
+            {
+                for (int cy = 0; cy < BUF_H; cy += 37)
+                {
+                    for (int cx = 0; cx < BUF_W; cx += 53)
+                    {
+                        Rectangle src = MagnifierOverlay.sourceRegion(cx, cy, size[0], size[1], BUF_W, BUF_H);
+                        Rectangle lens = MagnifierOverlay.lensBounds(src, zoom, BUF_W, BUF_H);
+                        if (lens.isEmpty())
+                        {
+                            continue;
+                        }
+                        assertFalse(src + " " + lens, lens.intersects(src));
+                        assertTrue(src + " " + lens, canvas.contains(lens));
+                    }
+                }
+            }
+        }
+
+        // A source covering the whole canvas leaves nowhere to put the lens.
+        assertTrue(MagnifierOverlay.lensBounds(canvas, 2, BUF_W, BUF_H).isEmpty());
+    }
+
+    @Test
+    public void copiesOnlyTheSourceRectangle()
+    {
+        int[] pixels = new int[BUF_W * BUF_H];
+        for (int i = 0; i < pixels.length; i++)
+        {
+            pixels[i] = i;
+        }
+
+        BufferedImage pool = new BufferedImage(200, 100, BufferedImage.TYPE_INT_RGB);
+        Rectangle src = new Rectangle(300, 200, 160, 60);
+        MagnifierOverlay.copyRegion(pixels, BUF_W, src, pool);
+
+        for (int y = 0; y < src.height; y++)
+        {
+            for (int x = 0; x < src.width; x++)
+            {
+                int expected = pixels[(src.y + y) * BUF_W + src.x + x] & 0xFFFFFF;
+                assertEquals(expected, pool.getRGB(x, y) & 0xFFFFFF);
+            }
+        }
+        // Outside the copied area the pooled image is untouched.
+        assertEquals(0, pool.getRGB(src.width, 0) & 0xFFFFFF);
+    }
+
+    @Test
+    public void lensIsNotDrawnUnderAGpuRenderer()
+    {
+        DrawCallbacks gpu = (DrawCallbacks) Proxy.newProxyInstance(DrawCallbacks.class.getClassLoader(),
+            new Class<?>[]{DrawCallbacks.class}, (proxy, method, args) -> null);
+        Client client = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class},
+            (proxy, method, args) ->
+            {
+                if (method.getName().equals("getDrawCallbacks"))
+                {
+                    return gpu;
+                }
+                throw new AssertionError("read " + method.getName() + " under a GPU renderer");
+            });
+        AccessibilityPlusConfig config = new AccessibilityPlusConfig()
+        {
+            @Override
+            public boolean enableMagnifier()
+            {
+                return true;
+            }
+        };
+
+        BufferedImage frame = new BufferedImage(BUF_W, BUF_H, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+        assertNull(new MagnifierOverlay(client, null, config).render(g));
+        g.dispose();
+        assertEquals(0xFF000000, frame.getRGB(BUF_W / 2, BUF_H / 2));
+    }
+}
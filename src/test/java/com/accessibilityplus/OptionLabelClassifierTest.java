@@ -0,0 +1,101 @@
+package com.accessibilityplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Random;
+import org.junit.Test;
+
+public class OptionLabelClassifierTest
+{
+    // The String.matches / equals chain the classifier replaces. Like the classifier it is
+    // fed cleaned widget text.
+    private static boolean legacyIsOptionLabel(String t)
+    {
+        String lower = t.toLowerCase();
+        if (lower.equals("all") || lower.equals("game") || lower.equals("public") || lower.equals("private")
+            || lower.equals("channel") || lower.equals("clan") || lower.equals("trade") || lower.equals("friends"))
+        {
+            return false;
+        }
+
+        String s = t.trim();
+        if (s.length() < 2)
+        {
+            return false;
+        }
+        if (s.equalsIgnoreCase("on") || s.equalsIgnoreCase("off"))
+        {
+            return false;
+        }
+        if (s.matches("^\\d+\\.$"))
+        {
+            return false;
+        }
+        if (s.matches("^\\d+$") || s.matches("^\\d+:\\d+(?::\\d+)?$"))
+        {
+            return false;
+        }
+        if (s.trim().matches("^[A-Za-z0-9 _\\-]{1,12}:\\s+.+$"))
+        {
+            return false;
+        }
+        return !s.trim().toLowerCase().contains("press enter to chat");
+    }
+
+    @Test
+    public void matchesLegacyOnKnownInputs()
+    {
+        String[] inputs = {
+            "Yes.", "No thanks.", "All", "friends", "On", "off", "3.", "12", "1:23", "01:02:03", "1:2:3:4",
+            "Zezima: hello", "A really long name: hi", "Bob:  ", "Bob: ", "Bob:x", ":x y",
+            "Press Enter to Chat...", "I'd like to trade.", "x", "", "12.5", "Tell me about the quest.",
+            "Bob:\n x", "Bob: \nx", "Bob: x\n",
+        };
+
+        OptionLabelClassifier classifier = OptionLabelClassifier.standard();
+        for (String in : inputs)
+        {
+            assertEquals(in, legacyIsOptionLabel(in), classifier.isOptionLabel(in));
+        }
+    }
+
+    @Test
+    public void matchesLegacyOnRandomInputs()
+    {
+        final char[] alphabet = {'a', 'Z', '1', '9', ' ', ':', '.', '_', '-', '\t', '\n', '!', 'o', 'n', 'l', 'A'};
+        Random rnd = new Random(42);
+        OptionLabelClassifier classifier = OptionLabelClassifier.standard();
+
+        for (int i = 0; i < 50000; i++)
+        {
+            int len = rnd.nextInt(18);
+            StringBuilder sb = new StringBuilder(len);
+            for (int j = 0; j < len; j++)
+            {
+                sb.append(alphabet[rnd.nextInt(alphabet.length)]);
+            }
+            String in = AccessibilityPlusPlugin.clean(sb.toString());
+            assertEquals(in, legacyIsOptionLabel(in), classifier.isOptionLabel(in));
+        }
+    }
+
+    @Test
+    public void countsHitsAndMissesPerRule()
+    {
+        OptionLabelClassifier classifier = OptionLabelClassifier.standard();
+
+        assertFalse(classifier.isOptionLabel("12:30"));
+        assertFalse(classifier.isOptionLabel("Game"));
+        assertTrue(classifier.isOptionLabel("Where am I?"));
+
+        assertEquals(1, classifier.hits(OptionLabelClassifier.StandardRule.TIMER));
+        assertEquals(1, classifier.hits(OptionLabelClassifier.StandardRule.TAB_LABEL));
+        // "12:30" and "Where am I?" both got past TAB_LABEL
+        assertEquals(2, classifier.misses(OptionLabelClassifier.StandardRule.TAB_LABEL));
+        assertEquals(1, classifier.accepted());
+
+        classifier.resetCounters();
+        assertEquals(0, classifier.hits(OptionLabelClassifier.StandardRule.TIMER));
+    }
+}
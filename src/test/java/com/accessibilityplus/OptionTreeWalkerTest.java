@@ -0,0 +1,178 @@
+package com.accessibilityplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.awt.Rectangle;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.api.widgets.Widget;
+import org.junit.Test;
+
+public class OptionTreeWalkerTest
+{
+    private static int nextId = 1;
+
+    // Widget answering only the getters the walker reads.
+    private static Widget widget(String text, int x, int y, int w, int h, Widget[] children, Widget[] statics)
+    {
+        return widget(text, x, y, w, h, 0, children, statics);
+    }
+
+    private static Widget widget(String text, int x, int y, int w, int h, int scrollY, Widget[] children,
+        Widget[] statics)
+    {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getText", text);
+        values.put("getRelativeX", x);
+        values.put("getRelativeY", y);
+        values.put("getWidth", w);
+        values.put("getHeight", h);
+        values.put("getScrollY", scrollY);
+        values.put("getChildren", children);
+        values.put("getDynamicChildren", children);
+        values.put("getStaticChildren", statics);
+        values.put("getId", nextId++);
+        return (Widget) Proxy.newProxyInstance(Widget.class.getClassLoader(), new Class<?>[]{Widget.class},
+            (proxy, method, args) ->
+            {
+                String name = method.getName();
+                if (values.containsKey(name))
+                {
+                    return values.get(name);
+                }
+                if (name.equals("getBounds"))
+                {
+                    // Only asked of the root: canvas position of a root laid out at (10, 300).
+                    return new Rectangle(10 + x, 300 + y, w, h);
+                }
+                Class<?> type = method.getReturnType();
+                return type == int.class ? 0 : type == boolean.class ? false : null;
+            });
+    }
+
+    private static Widget text(String text, int y)
+    {
+        return widget(text, 4, y, 200, 16, null, null);
+    }
+
+    private static Rectangle boundsOf(OptionTreeWalker.CandidateList list, String text)
+    {
+        for (int i = 0; i < list.size(); i++)
+        {
+            if (list.get(i).text.equals(text))
+            {
+                return list.get(i).bounds;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void candidatesComeFromChildrenWithCanvasBounds()
+    {
+        Widget options = widget("", 0, 10, 300, 100, new Widget[]{
+            text("Select an Option", 0),
+            text("Yes please.", 30),
+            text("No thanks.", 50),
+        }, null);
+        Widget root = widget("", 0, 0, 400, 150, new Widget[]{options}, null);
+
+        OptionTreeWalker walker = new OptionTreeWalker();
+        walker.beginPass();
+        assertTrue(walker.walk(root, "", ""));
+
+        OptionTreeWalker.CandidateList found = walker.candidates();
+        assertEquals(2, found.size());
+        assertEquals(new Rectangle(14, 340, 200, 16), boundsOf(found, "Yes please."));
+        assertEquals(new Rectangle(14, 360, 200, 16), boundsOf(found, "No thanks."));
+        assertEquals(new Rectangle(14, 310, 200, 16), walker.anchorBounds());
+    }
+
+    @Test
+    public void staticChildrenAreSearchedForTheHeaderOnly()
+    {
+        Widget statics = widget("", 0, 0, 300, 100, new Widget[]{text("Maybe later.", 20)},
+            new Widget[]{text("Select an Option", 0)});
+        Widget root = widget("", 0, 0, 400, 150, new Widget[]{text("Yes please.", 40)}, new Widget[]{statics});
+
+        OptionTreeWalker walker = new OptionTreeWalker();
+        walker.beginPass();
+        assertTrue(walker.walk(root, "", ""));
+
+        OptionTreeWalker.CandidateList found = walker.candidates();
+        assertEquals(1, found.size());
+        assertEquals("Yes please.", found.get(0).text);
+
+        Widget noHeader = widget("", 0, 0, 400, 150, new Widget[]{text("Yes please.", 40)}, null);
+        walker.beginPass();
+        assertFalse(walker.walk(noHeader, "", ""));
+    }
+
+    @Test
+    public void rootsThatAreStaticChildrenOfEarlierRootsStillCollect()
+    {
+        // Sweep roots are (group, child) components, i.e. static children of the group's
+        // first root, and are walked one after another in the same pass.
+        Widget rootB = widget("", 0, 20, 300, 100, new Widget[]{
+            text("Select an Option", 0),
+            text("Yes please.", 30),
+            text("No thanks.", 50),
+        }, null);
+        Widget rootA = widget("", 0, 0, 400, 150, null, new Widget[]{rootB});
+
+        OptionTreeWalker walker = new OptionTreeWalker();
+        walker.beginPass();
+        assertTrue(walker.walk(rootA, "", ""));
+        assertEquals(0, walker.candidates().size());
+
+        assertTrue(walker.walk(rootB, "", ""));
+        OptionTreeWalker.CandidateList found = walker.candidates();
+        assertEquals(2, found.size());
+        assertEquals(new Rectangle(14, 350, 200, 16), boundsOf(found, "Yes please."));
+
+        // Collecting nodes are still only looked at once per pass.
+        assertFalse(walker.walk(rootB, "", ""));
+    }
+
+    @Test
+    public void scrolledLayersMoveTheirChildren()
+    {
+        Widget options = widget("", 0, 10, 300, 100, 20, new Widget[]{
+            text("Select an Option", 0),
+            text("Yes please.", 30),
+        }, null);
+        Widget root = widget("", 0, 0, 400, 150, new Widget[]{options}, null);
+
+        OptionTreeWalker walker = new OptionTreeWalker();
+        walker.beginPass();
+        assertTrue(walker.walk(root, "", ""));
+        assertEquals(new Rectangle(14, 320, 200, 16), boundsOf(walker.candidates(), "Yes please."));
+    }
+
+    @Test
+    public void candidatesArePooledAcrossWalks()
+    {
+        Widget root = widget("", 0, 0, 400, 150, new Widget[]{
+            text("Select an Option", 0),
+            text("Yes please.", 30),
+        }, null);
+
+        OptionTreeWalker walker = new OptionTreeWalker();
+        walker.beginPass();
+        walker.walk(root, "", "");
+        OptionTreeWalker.OptionCandidate first = walker.candidates().get(0);
+
+        walker.beginPass();
+        walker.walk(root, "", "");
+        assertSame(first, walker.candidates().get(0));
+
+        // Copies keep their own candidates, untouched by later walks.
+        OptionTreeWalker.CandidateList kept = new OptionTreeWalker.CandidateList();
+        kept.addAll(walker.candidates());
+        assertEquals("Yes please.", kept.get(0).text);
+        assertTrue(kept.get(0) != first);
+    }
+}
@@ -0,0 +1,65 @@
+package com.accessibilityplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class OverlayStylesTest
+{
+    private static final AccessibilityPlusConfig.DialogTheme BLACK = AccessibilityPlusConfig.DialogTheme.BLACK_PANEL;
+    private static final AccessibilityPlusConfig.DialogTheme PARCHMENT = AccessibilityPlusConfig.DialogTheme.PARCHMENT;
+
+    @Test
+    public void steadyStateFramesReuseTheSameStyles()
+    {
+        OverlayStyles styles = new OverlayStyles();
+
+        OverlayStyles.Palette first = styles.palette(PARCHMENT, 10, 20, 100, 200);
+        OverlayStyles.MinimapColors colors = styles.minimapColors(180);
+        for (int frame = 0; frame < 1000; frame++)
+        {
+            OverlayStyles.Palette p = styles.palette(PARCHMENT, 10, 20, 100, 200);
+            assertSame(first, p);
+            assertSame(first.panelPaint, p.panelPaint);
+            assertSame(first.rowFill, p.rowFill);
+            assertSame(colors, styles.minimapColors(180));
+        }
+    }
+
+    @Test
+    public void rebuildsWhenTheKeyChanges()
+    {
+        OverlayStyles styles = new OverlayStyles();
+
+        OverlayStyles.Palette parchment = styles.palette(PARCHMENT, 10, 20, 100, 200);
+        assertNotSame(parchment, styles.palette(PARCHMENT, 10, 30, 100, 200));
+
+        // The black panel is flat, so moving it keeps the palette.
+        OverlayStyles.Palette black = styles.palette(BLACK, 10, 20, 100, 200);
+        assertSame(black, styles.palette(BLACK, 50, 60, 300, 200));
+
+        OverlayStyles.Palette faded = styles.palette(BLACK, 10, 20, 100, 90);
+        assertNotSame(black, faded);
+        assertEquals(90, faded.rowFill.getAlpha());
+
+        OverlayStyles.MinimapColors colors = styles.minimapColors(180);
+        assertNotSame(colors, styles.minimapColors(120));
+    }
+
+    @Test
+    public void invalidateDropsCachedStyles()
+    {
+        OverlayStyles styles = new OverlayStyles();
+
+        OverlayStyles.Palette p = styles.palette(BLACK, 0, 0, 100, 200);
+        OverlayStyles.MinimapColors colors = styles.minimapColors(180);
+
+        styles.invalidate();
+
+        OverlayStyles.Palette rebuilt = styles.palette(BLACK, 0, 0, 100, 200);
+        assertNotSame(p, rebuilt);
+        assertSame(rebuilt, styles.palette(BLACK, 0, 0, 100, 200));
+        assertNotSame(colors, styles.minimapColors(180));
+    }
+}
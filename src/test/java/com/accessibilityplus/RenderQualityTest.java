@@ -0,0 +1,95 @@
+package com.accessibilityplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class RenderQualityTest
+{
+    private static final int BUDGET_MICROS = 1000;
+
+    private boolean adaptive = true;
+
+    private final AccessibilityPlusConfig config = new AccessibilityPlusConfig()
+    {
+        @Override
+        public boolean adaptiveQuality()
+        {
+            return adaptive;
+        }
+
+        @Override
+        public int renderBudgetMicros()
+        {
+            return BUDGET_MICROS;
+        }
+    };
+
+    private static void frames(RenderQuality quality, int count, long micros)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            quality.record(micros * 1000L);
+            quality.frameStarted();
+        }
+    }
+
+    @Test
+    public void stepsDownInOrderOneWindowAtATime()
+    {
+        RenderQuality quality = new RenderQuality(config);
+
+        frames(quality, RenderQuality.WINDOW - 1, 3 * BUDGET_MICROS);
+        assertEquals(RenderQuality.Level.FULL, quality.getLevel());
+
+        RenderQuality.Level[] levels = RenderQuality.Level.values();
+        for (int i = 1; i < levels.length; i++)
+        {
+            frames(quality, RenderQuality.WINDOW, 3 * BUDGET_MICROS);
+            assertEquals(levels[i], quality.getLevel());
+        }
+
+        // Already at the lowest level.
+        frames(quality, RenderQuality.WINDOW, 3 * BUDGET_MICROS);
+        assertEquals(RenderQuality.Level.ENTITY_CAP, quality.getLevel());
+        assertEquals(RenderQuality.ENTITY_CAP_SHAPES, quality.getLevel().entityCap());
+        assertFalse(quality.getLevel().shadows());
+        assertFalse(quality.getLevel().antialias());
+    }
+
+    @Test
+    public void stepsBackUpOnlyAfterSustainedHeadroom()
+    {
+        RenderQuality quality = new RenderQuality(config);
+        frames(quality, 2 * RenderQuality.WINDOW, 3 * BUDGET_MICROS);
+        assertEquals(RenderQuality.Level.FLAT, quality.getLevel());
+
+        // Between half the budget and the budget: hold.
+        frames(quality, 10 * RenderQuality.WINDOW, BUDGET_MICROS * 3 / 4);
+        assertEquals(RenderQuality.Level.FLAT, quality.getLevel());
+
+        // The window average takes a while to drop under half the budget, and then has to stay there.
+        frames(quality, RenderQuality.WINDOW * RenderQuality.RECOVER_WINDOWS - 1, BUDGET_MICROS / 4);
+        assertEquals(RenderQuality.Level.FLAT, quality.getLevel());
+        frames(quality, RenderQuality.WINDOW, BUDGET_MICROS / 4);
+        assertEquals(RenderQuality.Level.NO_SHADOWS, quality.getLevel());
+
+        frames(quality, RenderQuality.WINDOW * RenderQuality.RECOVER_WINDOWS, BUDGET_MICROS / 4);
+        assertEquals(RenderQuality.Level.FULL, quality.getLevel());
+        assertTrue(quality.getLevel().shadows());
+        assertEquals(Integer.MAX_VALUE, quality.getLevel().entityCap());
+    }
+
+    @Test
+    public void turningAdaptiveQualityOffRestoresFull()
+    {
+        RenderQuality quality = new RenderQuality(config);
+        frames(quality, 3 * RenderQuality.WINDOW, 3 * BUDGET_MICROS);
+        assertEquals(RenderQuality.Level.NO_ANTIALIAS, quality.getLevel());
+
+        adaptive = false;
+        frames(quality, 1, 3 * BUDGET_MICROS);
+        assertEquals(RenderQuality.Level.FULL, quality.getLevel());
+    }
+}
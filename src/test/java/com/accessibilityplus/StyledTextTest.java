@@ -0,0 +1,58 @@
+package com.accessibilityplus;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Random;
+import org.junit.Test;
+
+public class StyledTextTest
+{
+    @Test
+    public void plainTextMatchesClean()
+    {
+        final String[] pieces = {
+            "<col=ff0000>", "</col>", "<br>", "<BR>", "<col=zz>", "<", ">", " ", " ", "\t", "\n",
+            "a", "Hans", ":", "\u0001", "x y",
+        };
+        Random rnd = new Random(11);
+        TextSanitizer sanitizer = new TextSanitizer();
+
+        for (int i = 0; i < 50000; i++)
+        {
+            StringBuilder sb = new StringBuilder();
+            int len = rnd.nextInt(10);
+            for (int j = 0; j < len; j++)
+            {
+                sb.append(pieces[rnd.nextInt(pieces.length)]);
+            }
+            String raw = sb.toString();
+            assertEquals(raw, sanitizer.sanitize(raw), StyledText.parse(raw).getText());
+        }
+    }
+
+    @Test
+    public void keepsColorRunsAndBreaks()
+    {
+        StyledText s = StyledText.parse("Talk to <col=ff0000>Hans</col> in the<br>castle.");
+
+        assertEquals("Talk to Hans in the castle.", s.getText());
+        assertFalse(s.isPlain());
+        assertTrue(s.hasColor(8, 12));
+        assertFalse(s.hasColor(0, 8));
+        assertFalse(s.hasColor(13, s.getText().length()));
+        assertArrayEquals(new int[]{19}, s.breaks());
+
+        StyledText p = s.prefixed("1. ");
+        assertTrue(p.hasColor(11, 15));
+        assertArrayEquals(new int[]{22}, p.breaks());
+    }
+
+    @Test
+    public void untaggedTextIsPlain()
+    {
+        assertTrue(StyledText.parse("  Hello   there ").isPlain());
+        assertEquals(StyledText.plain("Hello there"), StyledText.parse("  Hello   there "));
+    }
+}
@@ -0,0 +1,91 @@
+package com.accessibilityplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import java.util.Random;
+import org.junit.Test;
+
+public class TextSanitizerTest
+{
+    // The regex implementation TextSanitizer replaces; output must match it exactly.
+    static String legacyClean(String s)
+    {
+        if (s == null)
+        {
+            return "";
+        }
+        return s.replaceAll("<[^>]*>", " ")
+            .replace('\u00A0', ' ')
+            .trim()
+            .replaceAll("\\s+", " ");
+    }
+
+    @Test
+    public void matchesLegacyOnKnownInputs()
+    {
+        String[] inputs = {
+            null,
+            "",
+            "   ",
+            "Select an Option",
+            "<col=0000ff>Hans</col>",
+            "Hello<br>there,  adventurer!",
+            "\u00A0\u00A0padded\u00A0text\u00A0",
+            "a <b> c",
+            "unclosed < tag",
+            "two < opens < and > one close",
+            "<>",
+            "tab\tand\nnewline\r\n",
+            " \u0001 control \u0001 ",
+            "x\u000By\fz",
+            "<img=1>Iron Man: hi",
+        };
+
+        TextSanitizer sanitizer = new TextSanitizer();
+        for (String in : inputs)
+        {
+            assertEquals(String.valueOf(in), legacyClean(in), sanitizer.clean(in));
+        }
+    }
+
+    @Test
+    public void matchesLegacyOnRandomInputs()
+    {
+        final char[] alphabet = {'a', 'B', ' ', ' ', '\t', '\n', '\r', '\f', '\u000B', '\u00A0', '<', '>', '=', '1', '\u0001', ':'};
+        Random rnd = new Random(1234);
+        TextSanitizer sanitizer = new TextSanitizer();
+
+        for (int i = 0; i < 20000; i++)
+        {
+            int len = rnd.nextInt(40);
+            StringBuilder sb = new StringBuilder(len);
+            for (int j = 0; j < len; j++)
+            {
+                sb.append(alphabet[rnd.nextInt(alphabet.length)]);
+            }
+            String in = sb.toString();
+            assertEquals(in, legacyClean(in), sanitizer.clean(in));
+        }
+    }
+
+    @Test
+    public void returnsInputWhenAlreadyClean()
+    {
+        String in = "Yes, please.";
+        assertSame(in, new TextSanitizer().clean(in));
+    }
+
+    @Test
+    public void cachesByRawString()
+    {
+        TextSanitizer sanitizer = new TextSanitizer();
+        String in = "<col=ff0000>Warning</col>  text";
+
+        String first = sanitizer.clean(in);
+        String second = sanitizer.clean(in);
+
+        assertSame(first, second);
+        assertEquals(1, sanitizer.misses());
+        assertEquals(1, sanitizer.hits());
+    }
+}
@@ -0,0 +1,292 @@
+package com.accessibilityplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TextWrapUtilTest
+{
+    private static final AccessibilityPlusConfig.WrapMode GREEDY = AccessibilityPlusConfig.WrapMode.GREEDY;
+    private static final AccessibilityPlusConfig.WrapMode BALANCED = AccessibilityPlusConfig.WrapMode.BALANCED;
+
+    // The whitespace-only, measure-every-candidate wrap GREEDY replaces. GREEDY must match it
+    // on text without other break opportunities, with one intended difference: a word too
+    // wide for a line is hard-broken even when it starts a line, where this used to let it
+    // run past the edge.
+    static List<String> legacyWrap(FontMetrics fm, String text, int maxWidthPx)
+    {
+        final List<String> lines = new ArrayList<>();
+        if (text == null)
+        {
+            return lines;
+        }
+
+        String cleaned = text
+            .replace('\r', ' ')
+            .replace('\n', ' ')
+            .replace('\t', ' ')
+            .trim();
+
+        if (cleaned.isEmpty())
+        {
+            return lines;
+        }
+
+        StringBuilder line = new StringBuilder();
+        for (String w : cleaned.split("\\s+"))
+        {
+            if (line.length() == 0)
+            {
+                if (fm.stringWidth(w) > maxWidthPx)
+                {
+                    legacyHardBreak(fm, w, maxWidthPx, lines);
+                }
+                else
+                {
+                    line.append(w);
+                }
+                continue;
+            }
+
+            String candidate = line + " " + w;
+            if (fm.stringWidth(candidate) <= maxWidthPx)
+            {
+                line.append(" ").append(w);
+            }
+            else
+            {
+                lines.add(line.toString());
+                line.setLength(0);
+
+                if (fm.stringWidth(w) > maxWidthPx)
+                {
+                    legacyHardBreak(fm, w, maxWidthPx, lines);
+                }
+                else
+                {
+                    line.append(w);
+                }
+            }
+        }
+
+        if (line.length() > 0)
+        {
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    private static void legacyHardBreak(FontMetrics fm, String w, int maxWidthPx, List<String> lines)
+    {
+        StringBuilder part = new StringBuilder();
+        for (int i = 0; i < w.length(); i++)
+        {
+            part.append(w.charAt(i));
+            if (fm.stringWidth(part.toString()) > maxWidthPx)
+            {
+                char last = part.charAt(part.length() - 1);
+                part.deleteCharAt(part.length() - 1);
+                if (part.length() > 0)
+                {
+                    lines.add(part.toString());
+                }
+                part.setLength(0);
+                part.append(last);
+            }
+        }
+        if (part.length() > 0)
+        {
+            lines.add(part.toString());
+        }
+    }
+
+    static FontMetrics metrics(Font font, boolean antialias)
+    {
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+            antialias ? RenderingHints.VALUE_TEXT_ANTIALIAS_ON : RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+        g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS,
+            antialias ? RenderingHints.VALUE_FRACTIONALMETRICS_ON : RenderingHints.VALUE_FRACTIONALMETRICS_OFF);
+        FontMetrics fm = g.getFontMetrics(font);
+        g.dispose();
+        return fm;
+    }
+
+    @Test
+    public void matchesLegacyOnKnownInputs()
+    {
+        String[] inputs = {
+            null,
+            "",
+            "   ",
+            "Hello there, adventurer!",
+            "Supercalifragilisticexpialidocious",
+            "a Supercalifragilisticexpialidocious b",
+            "tab\tand\nnewline\r\n  double  spaces",
+            "x\u000By\fz",
+            "caf\u00e9 na\u00efve \u00bfqu\u00e9?",
+        };
+
+        FontMetrics fm = metrics(new Font(Font.DIALOG, Font.PLAIN, 28), true);
+        for (String in : inputs)
+        {
+            for (int width : new int[] {1, 20, 60, 200, 1000})
+            {
+                assertEquals(in + " @" + width, legacyWrap(fm, in, width), TextWrapUtil.wrap(fm, in, width, GREEDY));
+            }
+        }
+    }
+
+    @Test
+    public void matchesLegacyOnRandomInputs()
+    {
+        // Spaces are the only break opportunities in this alphabet; GREEDY would also break
+        // after punctuation that runs into the next word, where the old wrap could not.
+        final String alphabet = "aeiouWMil'  \t\u00e9\u00df1";
+        Random rnd = new Random(99);
+
+        List<FontMetrics> fonts = Arrays.asList(
+            metrics(new Font(Font.DIALOG, Font.PLAIN, 12), false),
+            metrics(new Font(Font.DIALOG, Font.BOLD, 19), true),
+            metrics(new Font(Font.SERIF, Font.PLAIN, 28), true),
+            metrics(new Font(Font.SANS_SERIF, Font.ITALIC, 47).deriveFont(33.5f), true));
+
+        for (int i = 0; i < 3000; i++)
+        {
+            int len = rnd.nextInt(160);
+            StringBuilder sb = new StringBuilder(len);
+            for (int j = 0; j < len; j++)
+            {
+                sb.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+            }
+            String in = sb.toString();
+            FontMetrics fm = fonts.get(i % fonts.size());
+            int width = 1 + rnd.nextInt(400);
+
+            assertEquals(in + " @" + width, legacyWrap(fm, in, width), TextWrapUtil.wrap(fm, in, width, GREEDY));
+        }
+    }
+
+    @Test
+    public void fallsBackToMeasuringBeyondLatin1()
+    {
+        FontMetrics fm = metrics(new Font(Font.DIALOG, Font.PLAIN, 20), true);
+        String in = "\u201cQuoted\u201d text \u2014 with dashes \u2026 and more words to wrap";
+        assertEquals(legacyWrap(fm, in, 120), TextWrapUtil.wrap(fm, in, 120, GREEDY));
+    }
+
+    @Test
+    public void balancedKeepsLineCountAndEvensOutLines()
+    {
+        final String alphabet = "aeiouWMil.,  ";
+        Random rnd = new Random(5);
+        FontMetrics fm = metrics(new Font(Font.DIALOG, Font.PLAIN, 28), true);
+
+        for (int i = 0; i < 500; i++)
+        {
+            int len = 20 + rnd.nextInt(300);
+            StringBuilder sb = new StringBuilder(len);
+            for (int j = 0; j < len; j++)
+            {
+                sb.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+            }
+            String in = sb.toString();
+            int width = 150 + rnd.nextInt(500);
+
+            // Words wider than the line are hard-broken the same way in both modes, so they stay in.
+            List<String> greedy = TextWrapUtil.wrap(fm, in, width, GREEDY);
+            List<String> balanced = TextWrapUtil.wrap(fm, in, width, BALANCED);
+
+            assertEquals(in, greedy.size(), balanced.size());
+            assertEquals(in, String.join("", greedy).replace(" ", ""), String.join("", balanced).replace(" ", ""));
+            for (String line : balanced)
+            {
+                assertTrue(line, line.indexOf(' ') < 0 || fm.stringWidth(line) <= width);
+            }
+
+            // Balanced works on exact widths; allow for stringWidth rounding each line by up to 1px.
+            long tolerance = 2L * (width + 1) * balanced.size();
+            assertTrue(in, raggedness(fm, balanced, width) <= raggedness(fm, greedy, width) + tolerance);
+        }
+    }
+
+    @Test
+    public void balancedBreaksShortLastLine()
+    {
+        FontMetrics fm = metrics(new Font(Font.DIALOG, Font.PLAIN, 28), true);
+        String in = "aaaa bbbb cccc dddd e";
+        int width = fm.stringWidth("aaaa bbbb cccc dddd");
+
+        assertEquals(Arrays.asList("aaaa bbbb cccc dddd", "e"), TextWrapUtil.wrap(fm, in, width, GREEDY));
+
+        List<String> balanced = TextWrapUtil.wrap(fm, in, width, BALANCED);
+        assertEquals(2, balanced.size());
+        assertTrue(balanced.toString(), balanced.get(1).length() > 1);
+    }
+
+    private static long raggedness(FontMetrics fm, List<String> lines, int width)
+    {
+        long sum = 0;
+        for (String line : lines)
+        {
+            long slack = width - fm.stringWidth(line);
+            sum += slack * slack;
+        }
+        return sum;
+    }
+
+    @Test
+    public void breaksAtHyphensAndSlashes()
+    {
+        FontMetrics fm = metrics(new Font(Font.DIALOG, Font.PLAIN, 20), true);
+
+        String hyphen = "a well-known name";
+        int width = fm.stringWidth("a well-");
+        assertEquals(Arrays.asList("a well-", "known", "name"), TextWrapUtil.wrap(fm, hyphen, width, GREEDY));
+
+        String url = "see oldschool.runescape.wiki/w/Cook's_Assistant";
+        for (String line : TextWrapUtil.wrap(fm, url, 200, GREEDY))
+        {
+            assertTrue(line, fm.stringWidth(line) <= 200);
+        }
+        assertEquals(url.replace(" ", ""), String.join("", TextWrapUtil.wrap(fm, url, 200, GREEDY)).replace(" ", ""));
+    }
+
+    @Test
+    public void breaksBetweenIdeographs()
+    {
+        FontMetrics fm = metrics(new Font(Font.DIALOG, Font.PLAIN, 20), true);
+        String cjk = "\u4f60\u597d\u5192\u9669\u5bb6\u6b22\u8fce\u6765\u5230\u57ce\u5821";
+        int width = fm.stringWidth(cjk.substring(0, 4));
+
+        List<String> lines = TextWrapUtil.wrap(fm, cjk, width, GREEDY);
+        assertTrue(lines.toString(), lines.size() > 1);
+        assertEquals(cjk, String.join("", lines));
+        for (String line : lines)
+        {
+            assertTrue(line, fm.stringWidth(line) <= width);
+        }
+    }
+
+    @Test
+    public void reusesBreaksAcrossWidths()
+    {
+        FontMetrics fm = metrics(new Font(Font.DIALOG, Font.PLAIN, 20), true);
+        String in = "The same line wrapped at a few different widths.";
+
+        LineBreaks breaks = LineBreaks.of(fm, in);
+        TextWrapUtil.wrap(fm, in, 120, GREEDY);
+        TextWrapUtil.wrap(fm, in, 300, BALANCED);
+        assertSame(breaks, LineBreaks.of(fm, in));
+    }
+}
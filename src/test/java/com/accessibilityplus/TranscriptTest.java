@@ -0,0 +1,62 @@
+package com.accessibilityplus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class TranscriptTest
+{
+    @Test
+    public void pagesNewestFirstAndSkipsRepeats()
+    {
+        Transcript t = new Transcript(8, 1024);
+        t.append(1, "Hans", "Hello.", Collections.emptyList());
+        t.append(2, "Hans", "Hello.", Collections.emptyList());
+        t.append(3, "", "", Arrays.asList("Yes.", "No."));
+
+        assertEquals(2, t.size());
+
+        List<Transcript.Entry> page = t.page(0, 10);
+        assertEquals(Arrays.asList("Yes.", "No."), page.get(0).options);
+        assertEquals("Hans", page.get(1).speaker);
+        assertEquals("Hello.", page.get(1).text);
+        assertEquals(1, page.get(1).time);
+    }
+
+    @Test
+    public void keepsTheNewestEntriesWithinFixedMemory()
+    {
+        Transcript t = new Transcript(32, 600);
+        List<String> appended = new ArrayList<>();
+        Random rnd = new Random(7);
+
+        for (int i = 0; i < 20000; i++)
+        {
+            String speaker = "Npc" + rnd.nextInt(4);
+            String text = "Line \u00e9 " + rnd.nextInt(200) + " " + "x".repeat(rnd.nextInt(40));
+            t.append(i, speaker, text, Collections.emptyList());
+
+            String entry = speaker + ": " + text;
+            if (appended.isEmpty() || !appended.get(appended.size() - 1).equals(entry))
+            {
+                appended.add(entry);
+            }
+            assertTrue(t.slabUsed() <= 600);
+        }
+
+        int n = t.size();
+        assertTrue(n > 0 && n <= 32);
+
+        List<Transcript.Entry> all = t.page(0, n);
+        for (int k = 0; k < n; k++)
+        {
+            Transcript.Entry e = all.get(k);
+            assertEquals(appended.get(appended.size() - 1 - k), e.speaker + ": " + e.text);
+        }
+    }
+}